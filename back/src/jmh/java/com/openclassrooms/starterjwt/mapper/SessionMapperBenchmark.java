@@ -0,0 +1,68 @@
+package com.openclassrooms.starterjwt.mapper;
+
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SessionMapper.toDto(List) sur des listes de 10, 1 000 et 100 000 sessions de 10 participants.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class SessionMapperBenchmark {
+    static final int PARTICIPANTS_PER_SESSION = 10;
+
+    @Param({"10", "1000", "100000"})
+    private int size;
+
+    private SessionMapper sessionMapper;
+
+    private List<Session> sessions;
+
+    @Setup
+    public void setUp() {
+        sessionMapper = new SessionMapperImpl();
+        sessions = sessions(size);
+    }
+
+    @Benchmark
+    public List<SessionDto> toDto() {
+        return sessionMapper.toDto(sessions);
+    }
+
+    public static List<Session> sessions(int size) {
+        Teacher teacher = new Teacher(1L, "Delahaye", "Margot", LocalDateTime.now(), LocalDateTime.now());
+        List<User> users = new ArrayList<>();
+        for (long id = 1; id <= PARTICIPANTS_PER_SESSION; id++) {
+            users.add(new User().setId(id).setEmail("user" + id + "@studio.com").setFirstName("Prénom").setLastName("Nom"));
+        }
+
+        List<Session> sessions = new ArrayList<>(size);
+        for (long id = 1; id <= size; id++) {
+            sessions.add(Session.builder()
+                    .id(id)
+                    .name("Session " + id)
+                    .date(new Date())
+                    .description("Séance de yoga n°" + id)
+                    .capacity(20)
+                    .teacher(teacher)
+                    .users(users)
+                    .createdAt(LocalDateTime.now())
+                    .updatedAt(LocalDateTime.now())
+                    .build());
+        }
+        return sessions;
+    }
+}
@@ -0,0 +1,100 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.SpringBootSecurityJwtApplication;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.utils.DatasetGenerator;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Inscription puis désinscription d'un utilisateur à une session, contre la base H2 embarquée du profil test.
+ * Chaque thread JMH (-t) a son propre utilisateur ; tous visent la même session.
+ * Avec -p datasetUsers=N, la base est d'abord remplie par DatasetGenerator (volumes proportionnels à N).
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SessionServiceParticipateBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Application {
+        private final AtomicInteger userCount = new AtomicInteger();
+
+        @Param({"0"})
+        private int datasetUsers;
+
+        ConfigurableApplicationContext context;
+
+        SessionService sessionService;
+
+        Long sessionId;
+
+        @Setup
+        public void start() {
+            context = new SpringApplicationBuilder(SpringBootSecurityJwtApplication.class)
+                    // perf : sans les composants de test (comptage des requêtes SQL), qui fausseraient la mesure
+                    .profiles("test", "perf")
+                    .logStartupInfo(false)
+                    .run("--server.port=0",
+                            "--spring.jpa.show-sql=false",
+                            "--logging.level.root=WARN",
+                            "--logging.level.org.hibernate.SQL=WARN",
+                            "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN");
+            if (datasetUsers > 0) {
+                new DatasetGenerator(context.getBean(DataSource.class),
+                        DatasetGenerator.Config.scaledTo(datasetUsers).build()).generate();
+            }
+            sessionService = context.getBean(SessionService.class);
+            sessionId = sessionService.create(Session.builder()
+                    .name("Session de banc d'essai")
+                    .description("Inscriptions en boucle")
+                    .date(new Date())
+                    .teacher(context.getBean(TeacherRepository.class).findById(1L).orElseThrow())
+                    .build()).getId();
+        }
+
+        Long newUser() {
+            int n = userCount.incrementAndGet();
+            return context.getBean(UserRepository.class).save(User.builder()
+                    .email("banc" + n + "@studio.com")
+                    .lastName("Banc")
+                    .firstName("Essai")
+                    .password("test!1234")
+                    .admin(false)
+                    .build()).getId();
+        }
+
+        @TearDown
+        public void stop() {
+            context.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Participant {
+        Long userId;
+
+        @Setup
+        public void setUp(Application application) {
+            userId = application.newUser();
+        }
+    }
+
+    @Benchmark
+    public void participateThenLeave(Application application, Participant participant) {
+        application.sessionService.participate(application.sessionId, participant.userId);
+        application.sessionService.noLongerParticipate(application.sessionId, participant.userId);
+    }
+}
@@ -0,0 +1,80 @@
+package com.openclassrooms.starterjwt.load;
+
+import lombok.Getter;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latences (en microsecondes) et codes de réponse d'une requête de la collection, alimentés par tous les threads.
+ */
+public class EndpointStats {
+    @Getter
+    private final String name;
+
+    private final Histogram latencies = new ConcurrentHistogram(3);
+
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+
+    private final LongAdder failures = new LongAdder();
+
+    public EndpointStats(String name) {
+        this.name = name;
+    }
+
+    public void record(long latencyMicros) {
+        latencies.recordValue(Math.max(0, latencyMicros));
+    }
+
+    public void record(long latencyMicros, int status) {
+        record(latencyMicros);
+        statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+    }
+
+    /**
+     * Requête sans réponse HTTP (connexion refusée, délai dépassé...).
+     */
+    public void failure() {
+        failures.increment();
+    }
+
+    public void reset() {
+        latencies.reset();
+        statuses.clear();
+        failures.reset();
+    }
+
+    public long count() {
+        return latencies.getTotalCount();
+    }
+
+    public long failures() {
+        return failures.sum();
+    }
+
+    public double percentileMillis(double percentile) {
+        return latencies.getValueAtPercentile(percentile) / 1000d;
+    }
+
+    public double maxMillis() {
+        return latencies.getMaxValue() / 1000d;
+    }
+
+    public Map<Integer, Long> statuses() {
+        Map<Integer, Long> counts = new TreeMap<>();
+        statuses.forEach((status, count) -> counts.put(status, count.sum()));
+        return counts;
+    }
+
+    /**
+     * Distribution complète au format .hgrm (valeurs en millisecondes), lisible par HdrHistogram Plotter.
+     */
+    public void writeDistribution(PrintStream out) {
+        latencies.copy().outputPercentileDistribution(out, 1000d);
+    }
+}
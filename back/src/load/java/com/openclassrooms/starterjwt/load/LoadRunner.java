@@ -0,0 +1,509 @@
+package com.openclassrooms.starterjwt.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.SpringBootSecurityJwtApplication;
+import com.openclassrooms.starterjwt.services.TeacherService;
+import com.openclassrooms.starterjwt.utils.DatasetGenerator;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * Tir de charge qui rejoue les requêtes de la collection Postman (ressources/postman).
+ * <p>
+ * Chaque utilisateur virtuel se connecte une fois et garde son propre JWT, puis enchaîne le parcours configuré
+ * (par défaut : liste des sessions, détail, inscription, désinscription) sur une session tirée au hasard parmi celles
+ * qui avaient des places libres au démarrage, en proportion de ces places. La désinscription ne suit qu'une inscription
+ * acceptée dans le même parcours : l'utilisateur virtuel ne libère que la place qu'il a prise lui-même.
+ * <ul>
+ * <li>modèle fermé (closed) : load.users utilisateurs bouclent sur le parcours, avec load.thinkMs de pause ;</li>
+ * <li>modèle ouvert (open) : load.rate parcours démarrent par seconde quel que soit le temps de réponse, dans la
+ * limite de load.maxInFlight parcours simultanés (au-delà, l'arrivée est comptée comme abandonnée).</li>
+ * </ul>
+ * Sans load.url, l'application est démarrée dans ce processus avec le profil test (H2) et remplie par
+ * DatasetGenerator (load.datasetUsers). Les latences sont enregistrées par requête dans des histogrammes HdrHistogram ;
+ * celle du parcours est mesurée depuis son heure d'arrivée prévue, attente comprise.
+ * <pre>
+ * mvn -Pload test-compile exec:java -Dload.model=open -Dload.rate=500 -Dload.durationSeconds=120
+ * </pre>
+ */
+@Slf4j
+public class LoadRunner {
+    static final String LOGIN = "auth/login";
+    static final String REGISTER = "auth/register";
+    static final String SESSIONS = "session/find all";
+    static final String PARTICIPATE = "session/participe";
+    static final String NO_LONGER_PARTICIPATE = "session/no longer participe";
+
+    private final Config config;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final HttpClient client;
+
+    private final Map<String, EndpointStats> stats = new LinkedHashMap<>();
+
+    private final EndpointStats iterations = new EndpointStats("parcours");
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final String baseUrl;
+
+    private PostmanCollection collection;
+
+    private List<PostmanCollection.RequestTemplate> flow;
+
+    private List<VirtualUser> users;
+
+    private long[] sessionIds;
+
+    // places libres cumulées des sessions de sessionIds, pour un tirage proportionnel
+    private long[] cumulativeSeats;
+
+    public LoadRunner(Config config, String baseUrl) {
+        this.config = config;
+        this.baseUrl = baseUrl;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(config.getTimeoutSeconds()))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Config config = Config.fromSystemProperties();
+        ConfigurableApplicationContext context = config.getUrl() == null ? startApplication(config) : null;
+        try {
+            String baseUrl = context == null ? config.getUrl()
+                    : "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+            new LoadRunner(config, baseUrl).run();
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    /**
+     * Application démarrée avec le profil test (H2 en mémoire) sur un port libre, journaux SQL coupés ; le profil perf
+     * écarte les composants de test, dont le comptage des requêtes SQL qui conserverait chacune d'elles pendant le tir.
+     */
+    static ConfigurableApplicationContext startApplication(Config config) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringBootSecurityJwtApplication.class)
+                .profiles("test", "perf")
+                .logStartupInfo(false)
+                .run("--server.port=0",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                        "--logging.level.com.openclassrooms.starterjwt.utils=INFO",
+                        "--logging.level.com.openclassrooms.starterjwt.load=INFO");
+        if (config.getDatasetUsers() > 0) {
+            new DatasetGenerator(context.getBean(DataSource.class),
+                    DatasetGenerator.Config.scaledTo(config.getDatasetUsers()).build()).generate();
+            context.getBean(TeacherService.class).refresh();
+        }
+        return context;
+    }
+
+    public void run() throws IOException, InterruptedException {
+        collection = PostmanCollection.read(Paths.get(config.getCollection()), objectMapper);
+        flow = config.getFlow().stream().map(collection::get).collect(Collectors.toList());
+        flow.forEach(template -> stats.putIfAbsent(template.getName(), new EndpointStats(template.getName())));
+
+        log.info("Connexion de {} utilisateurs virtuels sur {}", config.getUsers(), baseUrl);
+        users = connectUsers();
+        loadSessionsWithSeats(users.get(0));
+        log.info("{} sessions avec des places libres ({} places) ; parcours : {}", sessionIds.length,
+                cumulativeSeats[cumulativeSeats.length - 1], config.getFlow());
+
+        if (config.getWarmupSeconds() > 0) {
+            log.info("Préchauffage : {} s", config.getWarmupSeconds());
+            runPhase(config.getWarmupSeconds());
+            stats.values().forEach(EndpointStats::reset);
+            iterations.reset();
+            dropped.reset();
+        }
+
+        log.info("Mesure : {} s, modèle {}", config.getDurationSeconds(), config.getModel());
+        runPhase(config.getDurationSeconds());
+        report(System.out);
+        writeDistributions();
+    }
+
+    private void runPhase(int seconds) throws InterruptedException {
+        long duration = TimeUnit.SECONDS.toNanos(seconds);
+        if (Config.OPEN.equals(config.getModel())) {
+            runOpen(duration);
+        } else {
+            runClosed(duration);
+        }
+    }
+
+    private void runClosed(long duration) throws InterruptedException {
+        long end = System.nanoTime() + duration;
+        ExecutorService pool = Executors.newFixedThreadPool(users.size());
+        for (VirtualUser user : users) {
+            pool.execute(() -> {
+                while (System.nanoTime() < end && !Thread.currentThread().isInterrupted()) {
+                    iteration(user, System.nanoTime());
+                    if (config.getThinkMs() > 0) {
+                        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(config.getThinkMs()));
+                    }
+                }
+            });
+        }
+        awaitCompletion(pool);
+    }
+
+    private void runOpen(long duration) throws InterruptedException {
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / config.getRate());
+        Semaphore inFlight = new Semaphore(config.getMaxInFlight());
+        ExecutorService pool = Executors.newCachedThreadPool();
+        long start = System.nanoTime();
+        for (long arrival = 0; arrival * interval < duration; arrival++) {
+            long intendedStart = start + arrival * interval;
+            long wait = intendedStart - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (!inFlight.tryAcquire()) {
+                dropped.increment();
+                continue;
+            }
+            VirtualUser user = users.get((int) (arrival % users.size()));
+            pool.execute(() -> {
+                try {
+                    iteration(user, intendedStart);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+        awaitCompletion(pool);
+    }
+
+    private void awaitCompletion(ExecutorService pool) throws InterruptedException {
+        pool.shutdown();
+        if (!pool.awaitTermination(config.getTimeoutSeconds() * (flow.size() + 1L), TimeUnit.SECONDS)) {
+            pool.shutdownNow();
+        }
+    }
+
+    private void iteration(VirtualUser user, long intendedStart) {
+        Map<String, String> variables = Map.of(
+                "id", String.valueOf(drawSession()),
+                "userId", String.valueOf(user.getId()));
+        // null tant que le parcours n'a pas tenté d'inscription
+        Boolean joined = null;
+        for (PostmanCollection.RequestTemplate template : flow) {
+            if (NO_LONGER_PARTICIPATE.equals(template.getName()) && Boolean.FALSE.equals(joined)) {
+                // inscription refusée (session complète, déjà inscrit) : rien à libérer
+                continue;
+            }
+            int status = send(template, user, variables);
+            if (status < 0) {
+                return;
+            }
+            if (PARTICIPATE.equals(template.getName())) {
+                joined = status == 200;
+            }
+        }
+        iterations.record((System.nanoTime() - intendedStart) / 1000);
+    }
+
+    private long drawSession() {
+        long seat = ThreadLocalRandom.current().nextLong(cumulativeSeats[cumulativeSeats.length - 1]);
+        int index = Arrays.binarySearch(cumulativeSeats, seat + 1);
+        return sessionIds[index < 0 ? -index - 1 : index];
+    }
+
+    // code HTTP de la réponse, -1 si la requête n'a pas abouti
+    private int send(PostmanCollection.RequestTemplate template, VirtualUser user, Map<String, String> variables) {
+        EndpointStats endpoint = stats.get(template.getName());
+        try {
+            HttpRequest request = request(template, template.path(variables), template.body(Map.of(), objectMapper),
+                    user.getAuthorization());
+            long begin = System.nanoTime();
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            endpoint.record((System.nanoTime() - begin) / 1000, response.statusCode());
+            return response.statusCode();
+        } catch (IOException e) {
+            endpoint.failure();
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+
+    private HttpRequest request(PostmanCollection.RequestTemplate template, String path, String body,
+                                String authorization) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(config.getTimeoutSeconds()));
+        if (authorization != null) {
+            builder.header("Authorization", authorization);
+        }
+        if (body == null) {
+            return builder.method(template.getMethod(), HttpRequest.BodyPublishers.noBody()).build();
+        }
+        return builder.header("Content-Type", "application/json")
+                .method(template.getMethod(), HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    /**
+     * Un JWT par utilisateur virtuel : comptes de DatasetGenerator tant qu'il y en a, comptes créés via la requête
+     * d'inscription de la collection au-delà. Connexions en parallèle, bornées au nombre de cœurs (BCrypt).
+     */
+    private List<VirtualUser> connectUsers() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            List<Future<VirtualUser>> futures = new ArrayList<>();
+            for (int index = 0; index < config.getUsers(); index++) {
+                int userIndex = index;
+                futures.add(pool.submit(() -> {
+                    if (userIndex < config.getDatasetUsers()) {
+                        return login(DatasetGenerator.emailOf(userIndex));
+                    }
+                    String email = "load" + userIndex + "@studio.test";
+                    register(email);
+                    return login(email);
+                }));
+            }
+
+            List<VirtualUser> connected = new ArrayList<>();
+            for (Future<VirtualUser> future : futures) {
+                connected.add(future.get());
+            }
+            return Collections.unmodifiableList(connected);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Connexion des utilisateurs virtuels impossible", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void register(String email) throws IOException, InterruptedException {
+        PostmanCollection.RequestTemplate template = collection.get(REGISTER);
+        String body = template.body(Map.of("email", email, "password", DatasetGenerator.PASSWORD), objectMapper);
+        // 400 : compte déjà créé par un tir précédent
+        HttpResponse<String> response = sendRetrying(request(template, template.getPath(), body, null));
+        if (response.statusCode() != 200 && response.statusCode() != 400) {
+            throw new IllegalStateException("Inscription impossible pour " + email + " : HTTP " + response.statusCode());
+        }
+    }
+
+    private VirtualUser login(String email) throws IOException, InterruptedException {
+        PostmanCollection.RequestTemplate template = collection.get(LOGIN);
+        String body = template.body(Map.of("email", email, "password", DatasetGenerator.PASSWORD), objectMapper);
+        HttpResponse<String> response = sendRetrying(request(template, template.getPath(), body, null));
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Connexion impossible pour " + email + " : HTTP " + response.statusCode());
+        }
+
+        JsonNode jwt = objectMapper.readTree(response.body());
+        return new VirtualUser(email, jwt.path("id").asLong(), "Bearer " + jwt.path("token").asText());
+    }
+
+    // le serveur refuse les connexions en 503 quand la file BCrypt est pleine : on patiente comme demandé
+    private HttpResponse<String> sendRetrying(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        for (int attempt = 0; response.statusCode() == 503 && attempt < 20; attempt++) {
+            long retryAfter = response.headers().firstValueAsLong("Retry-After").orElse(1);
+            TimeUnit.SECONDS.sleep(retryAfter);
+            response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        }
+        return response;
+    }
+
+    /**
+     * Sessions qui ont des places libres, avec leur nombre : tirer une session complète mesurerait surtout le refus
+     * d'inscription. Une session sans capacité compte une place par utilisateur virtuel.
+     */
+    private void loadSessionsWithSeats(VirtualUser user) throws IOException, InterruptedException {
+        PostmanCollection.RequestTemplate template = collection.get(SESSIONS);
+        HttpResponse<String> response = client.send(
+                request(template, template.getPath() + "?unpaged=true", null, user.getAuthorization()),
+                HttpResponse.BodyHandlers.ofString());
+        List<long[]> available = new ArrayList<>();
+        if (response.statusCode() == 200) {
+            for (JsonNode session : objectMapper.readTree(response.body())) {
+                JsonNode capacity = session.path("capacity");
+                long seats = capacity.isNumber() ? capacity.asLong() - session.path("participantCount").asLong()
+                        : config.getUsers();
+                if (seats > 0) {
+                    available.add(new long[]{session.path("id").asLong(), seats});
+                }
+            }
+        }
+        if (available.isEmpty()) {
+            throw new IllegalStateException("Aucune session avec des places libres sur " + baseUrl + " (HTTP "
+                    + response.statusCode() + ") : remplir la base avec DatasetGenerator ou load.datasetUsers");
+        }
+
+        sessionIds = new long[available.size()];
+        cumulativeSeats = new long[available.size()];
+        long total = 0;
+        for (int index = 0; index < sessionIds.length; index++) {
+            sessionIds[index] = available.get(index)[0];
+            total += available.get(index)[1];
+            cumulativeSeats[index] = total;
+        }
+    }
+
+    void report(PrintStream out) {
+        double seconds = config.getDurationSeconds();
+        out.println();
+        out.printf("Tir %s sur %s : %d utilisateurs virtuels, %d s%s%n", config.getModel(), baseUrl, users.size(),
+                config.getDurationSeconds(),
+                Config.OPEN.equals(config.getModel()) ? String.format(", %.0f parcours/s demandés", config.getRate()) : "");
+        out.printf("%-30s %9s %9s %9s %9s %9s %9s %9s  %s%n",
+                "Requête", "Nombre", "Req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "Réponses");
+        List<EndpointStats> rows = new ArrayList<>(stats.values());
+        rows.add(iterations);
+        for (EndpointStats endpoint : rows) {
+            String responses = endpoint.statuses().entrySet().stream()
+                    .map(entry -> entry.getKey() + "×" + entry.getValue())
+                    .collect(Collectors.joining(" "));
+            if (endpoint.failures() > 0) {
+                responses += " échecs×" + endpoint.failures();
+            }
+            out.printf("%-30s %9d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f  %s%n", endpoint.getName(), endpoint.count(),
+                    endpoint.count() / seconds, endpoint.percentileMillis(50), endpoint.percentileMillis(90),
+                    endpoint.percentileMillis(99), endpoint.percentileMillis(99.9), endpoint.maxMillis(), responses);
+        }
+        if (dropped.sum() > 0) {
+            out.printf("Arrivées abandonnées (plus de %d parcours en cours) : %d%n", config.getMaxInFlight(), dropped.sum());
+        }
+    }
+
+    private void writeDistributions() throws IOException {
+        Path directory = Files.createDirectories(Paths.get(config.getReportDir()));
+        List<EndpointStats> rows = new ArrayList<>(stats.values());
+        rows.add(iterations);
+        for (EndpointStats endpoint : rows) {
+            Path file = directory.resolve(endpoint.getName().replaceAll("[^A-Za-z0-9]+", "-") + ".hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(file), true, "UTF-8")) {
+                endpoint.writeDistribution(out);
+            }
+        }
+        log.info("Distributions HdrHistogram écrites dans {}", directory.toAbsolutePath());
+    }
+
+    @Getter
+    @AllArgsConstructor
+    static class VirtualUser {
+        private final String email;
+
+        private final long id;
+
+        private final String authorization;
+    }
+
+    @Getter
+    @Builder(toBuilder = true)
+    public static class Config {
+        public static final String CLOSED = "closed";
+        public static final String OPEN = "open";
+
+        // cible déjà démarrée (ex. http://localhost:8080) ; sans valeur, application démarrée ici avec le profil test
+        private final String url;
+
+        @Builder.Default
+        private final String collection = "../ressources/postman/yoga.postman_collection.json";
+
+        @Builder.Default
+        private final List<String> flow = List.of("session/find all", "session/find by id", "session/participe",
+                "session/no longer participe");
+
+        @Builder.Default
+        private final String model = CLOSED;
+
+        @Builder.Default
+        private final int users = 50;
+
+        // modèle ouvert : parcours démarrés par seconde
+        @Builder.Default
+        private final double rate = 100;
+
+        @Builder.Default
+        private final int maxInFlight = 500;
+
+        @Builder.Default
+        private final long thinkMs = 0;
+
+        @Builder.Default
+        private final int warmupSeconds = 10;
+
+        @Builder.Default
+        private final int durationSeconds = 60;
+
+        @Builder.Default
+        private final int timeoutSeconds = 10;
+
+        // comptes DatasetGenerator de la cible (générés ici si l'application est démarrée par le tir)
+        @Builder.Default
+        private final int datasetUsers = 10_000;
+
+        @Builder.Default
+        private final String reportDir = "target/load";
+
+        /**
+         * Configuration lue dans les propriétés système load.* (mêmes noms que les champs, flow séparé par des virgules).
+         */
+        public static Config fromSystemProperties() {
+            Config defaults = Config.builder().build();
+            return Config.builder()
+                    .url(System.getProperty("load.url"))
+                    .collection(System.getProperty("load.collection", defaults.getCollection()))
+                    .flow(Arrays.stream(System.getProperty("load.flow", String.join(",", defaults.getFlow())).split(","))
+                            .map(String::trim)
+                            .collect(Collectors.toList()))
+                    .model(System.getProperty("load.model", defaults.getModel()))
+                    .users(Integer.getInteger("load.users", defaults.getUsers()))
+                    .rate(Double.parseDouble(System.getProperty("load.rate", String.valueOf(defaults.getRate()))))
+                    .maxInFlight(Integer.getInteger("load.maxInFlight", defaults.getMaxInFlight()))
+                    .thinkMs(Long.getLong("load.thinkMs", defaults.getThinkMs()))
+                    .warmupSeconds(Integer.getInteger("load.warmupSeconds", defaults.getWarmupSeconds()))
+                    .durationSeconds(Integer.getInteger("load.durationSeconds", defaults.getDurationSeconds()))
+                    .timeoutSeconds(Integer.getInteger("load.timeoutSeconds", defaults.getTimeoutSeconds()))
+                    .datasetUsers(Integer.getInteger("load.datasetUsers", defaults.getDatasetUsers()))
+                    .reportDir(System.getProperty("load.reportDir", defaults.getReportDir()))
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.openclassrooms.starterjwt.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+/**
+ * Requêtes d'une collection Postman v2.1, indexées par "dossier/nom" (ex. "session/find by id").
+ * Seuls la méthode, le chemin (variables :id, :userId...) et le corps JSON sont repris : l'hôte est celui de la cible
+ * du tir de charge et l'authentification est portée par chaque utilisateur virtuel.
+ */
+public class PostmanCollection {
+    private final Map<String, RequestTemplate> requests = new LinkedHashMap<>();
+
+    public static PostmanCollection read(Path path, ObjectMapper objectMapper) throws IOException {
+        PostmanCollection collection = new PostmanCollection();
+        collection.collect("", objectMapper.readTree(path.toFile()).path("item"), objectMapper);
+        return collection;
+    }
+
+    public RequestTemplate get(String name) {
+        RequestTemplate template = requests.get(name);
+        if (template == null) {
+            throw new IllegalArgumentException("Requête absente de la collection : " + name
+                    + " (disponibles : " + requests.keySet() + ")");
+        }
+        return template;
+    }
+
+    private void collect(String folder, JsonNode items, ObjectMapper objectMapper) throws IOException {
+        for (JsonNode item : items) {
+            String name = folder.isEmpty() ? item.path("name").asText() : folder + "/" + item.path("name").asText();
+            if (item.has("item")) {
+                collect(name, item.path("item"), objectMapper);
+                continue;
+            }
+
+            JsonNode request = item.path("request");
+            String path = StreamSupport.stream(request.path("url").path("path").spliterator(), false)
+                    .map(JsonNode::asText)
+                    .collect(Collectors.joining("/", "/", ""));
+            String raw = request.path("body").path("raw").asText("");
+            JsonNode body = raw.isBlank() ? null : objectMapper.readTree(raw);
+            requests.put(name, new RequestTemplate(name, request.path("method").asText("GET"), path, body));
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class RequestTemplate {
+        private final String name;
+
+        private final String method;
+
+        private final String path;
+
+        private final JsonNode body;
+
+        /**
+         * Chemin dont les segments ":variable" sont remplacés par les valeurs fournies.
+         */
+        public String path(Map<String, String> variables) {
+            StringBuilder resolved = new StringBuilder();
+            for (String segment : path.substring(1).split("/")) {
+                resolved.append('/');
+                if (segment.startsWith(":") && variables.containsKey(segment.substring(1))) {
+                    resolved.append(variables.get(segment.substring(1)));
+                } else {
+                    resolved.append(segment);
+                }
+            }
+            return resolved.toString();
+        }
+
+        /**
+         * Corps JSON de la collection dont les champs présents dans fields sont remplacés, null s'il n'y en a pas.
+         */
+        public String body(Map<String, String> fields, ObjectMapper objectMapper) throws IOException {
+            if (body == null) {
+                return null;
+            }
+            JsonNode resolved = body.deepCopy();
+            if (resolved instanceof ObjectNode) {
+                fields.forEach((field, value) -> {
+                    if (resolved.has(field)) {
+                        ((ObjectNode) resolved).put(field, value);
+                    }
+                });
+            }
+            return objectMapper.writeValueAsString(resolved);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.openclassrooms.starterjwt.cache;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import lombok.Data;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.jcache.MissingCacheStrategy;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Cache de second niveau Hibernate (entités @Cache et requêtes cacheables), activé par
+ * spring.jpa.properties.hibernate.cache.use_second_level_cache.
+ * <p>
+ * Fournisseur JCache de Caffeine : chaque région est un cache borné en taille et expirant après écriture, décrit par
+ * oc.app.hibernateCache.regions.&lt;région&gt;.* ; une région absente de cette configuration fait échouer le démarrage
+ * plutôt que d'être créée sans limite. Succès et échecs par région sont publiés avec les statistiques Hibernate
+ * (hibernate.second.level.cache.requests, hibernate.cache.query.requests).
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.jpa.properties.hibernate.cache.use_second_level_cache", havingValue = "true")
+public class HibernateCacheConfig {
+    /**
+     * Dates de dernière modification des tables, consultées avant de servir une requête cacheable : ne doit ni expirer
+     * ni perdre d'entrée (une par table), elle n'est donc pas configurable.
+     */
+    static final String UPDATE_TIMESTAMPS_REGION = RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME;
+
+    /**
+     * Gestionnaire propre à chaque contexte Spring : deux contextes (tests) ne partagent jamais leurs régions.
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(Environment environment) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("hibernate-" + UUID.randomUUID()), getClass().getClassLoader());
+
+        Binder.get(environment)
+                .bind("oc.app.hibernate-cache.regions", Bindable.mapOf(String.class, RegionSettings.class))
+                .orElseGet(Map::of)
+                .forEach((name, settings) -> cacheManager.createCache(name, settings.toConfiguration()));
+        cacheManager.createCache(UPDATE_TIMESTAMPS_REGION, byReference());
+        return cacheManager;
+    }
+
+    // Hibernate range déjà un état désassemblé : aucune copie par sérialisation à chaque lecture ou écriture
+    static CaffeineConfiguration<Object, Object> byReference() {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setStoreByValue(false);
+        return configuration;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, ConfigSettings.SIMPLE_FACTORY_NAME);
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, MissingCacheStrategy.FAIL.getExternalRepresentation());
+        };
+    }
+
+    @Data
+    public static class RegionSettings {
+        // nombre maximum d'entrées de la région
+        private long maximumSize;
+
+        // durée de vie d'une entrée depuis sa dernière écriture
+        private Duration expireAfterWrite;
+
+        CaffeineConfiguration<Object, Object> toConfiguration() {
+            if (maximumSize <= 0 || expireAfterWrite == null) {
+                throw new IllegalArgumentException("Région du cache Hibernate sans maximumSize ou expireAfterWrite");
+            }
+            CaffeineConfiguration<Object, Object> configuration = byReference();
+            configuration.setMaximumSize(OptionalLong.of(maximumSize));
+            configuration.setExpireAfterWrite(OptionalLong.of(expireAfterWrite.toNanos()));
+            return configuration;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.openclassrooms.starterjwt.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.openclassrooms.starterjwt.datasource.ReplicaRoutingDataSource;
+import com.openclassrooms.starterjwt.metrics.RequestTiming;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Réponses de GET /api/session déjà sérialisées, par combinaison de paramètres : corps JSON, variante gzip et ETag
+ * fort de chacun. Un succès ne sérialise ni ne compresse rien, les octets mis en cache sont écrits tels quels.
+ * <p>
+ * Toute écriture sur les sessions ou les inscriptions appelle {@link #invalidate()}, qui change de génération : les
+ * entrées des générations précédentes ne sont plus lues, y compris celles d'un chargement commencé avant l'écriture.
+ * Les écritures d'une autre instance ne sont vues qu'à l'expiration des entrées (oc.app.sessionListCacheTtlMs).
+ * <p>
+ * Le cache est borné en octets (corps JSON et variante gzip, oc.app.sessionListCacheMaxBytes) et non en nombre
+ * d'entrées : une liste complète avec les participants pèse bien plus qu'une page.
+ */
+@Component
+public class SessionListCache {
+    public static final String GZIP = "gzip";
+
+    private final ObjectMapper objectMapper;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final Cache<Key, SerializedResponse> responses;
+
+    public SessionListCache(ObjectMapper objectMapper,
+                            @Value("${oc.app.sessionListCacheTtlMs:30000}") long ttlMs,
+                            @Value("${oc.app.sessionListCacheMaxBytes:67108864}") long maxBytes) {
+        this.objectMapper = objectMapper;
+        this.responses = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Key key, SerializedResponse response) -> response.weight())
+                .expireAfterWrite(ttlMs, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Réponse sérialisée pour ces paramètres, produite par loader en cas d'absence (un seul chargement concurrent par
+     * combinaison) ; une exception du loader est propagée telle quelle et rien n'est mis en cache.
+     */
+    public SerializedResponse get(Object parameters, Supplier<?> loader) {
+        return this.responses.get(new Key(this.generation.get(), parameters), key -> serialize(ReplicaRoutingDataSource.refill(loader)));
+    }
+
+    /**
+     * À appeler après chaque écriture. Dans une transaction, la génération change aussi à sa fin : une liste relue
+     * entre l'écriture et le commit n'est pas servie ensuite.
+     */
+    public void invalidate() {
+        nextGeneration();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    nextGeneration();
+                }
+            });
+        }
+    }
+
+    // octets retenus, une fois les évictions en attente appliquées
+    long weightedSize() {
+        this.responses.cleanUp();
+        return this.responses.policy().eviction().orElseThrow().weightedSize().orElseThrow();
+    }
+
+    private void nextGeneration() {
+        this.generation.incrementAndGet();
+        this.responses.invalidateAll();
+    }
+
+    private SerializedResponse serialize(Object body) {
+        RequestTiming.enter(RequestTiming.SERIALIZATION);
+        try {
+            return new SerializedResponse(this.objectMapper.writeValueAsBytes(body));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Sérialisation de la liste des sessions impossible", e);
+        } finally {
+            RequestTiming.exit();
+        }
+    }
+
+    /**
+     * Vrai si l'en-tête Accept-Encoding accepte gzip (explicitement ou par *), sans q=0.
+     */
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            int parameters = coding.indexOf(';');
+            String name = (parameters < 0 ? coding : coding.substring(0, parameters)).trim();
+            if (GZIP.equalsIgnoreCase(name) || "*".equals(name)) {
+                return parameters < 0 || !isZeroQuality(coding.substring(parameters + 1));
+            }
+        }
+        return false;
+    }
+
+    private static boolean isZeroQuality(String parameters) {
+        String quality = parameters.replace(" ", "");
+        try {
+            return quality.startsWith("q=") && Double.parseDouble(quality.substring(2)) == 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static class Key {
+        private final long generation;
+
+        private final Object parameters;
+    }
+
+    @Getter
+    public static class SerializedResponse {
+        private final byte[] body;
+
+        private final String eTag;
+
+        // null si la compression ne réduit pas la taille
+        private final byte[] gzipBody;
+
+        private final String gzipETag;
+
+        SerializedResponse(byte[] body) {
+            // ETag fort : empreinte du contenu, propre à chaque codage
+            String digest = DigestUtils.md5DigestAsHex(body);
+            byte[] gzip = gzip(body);
+
+            this.body = body;
+            this.eTag = "\"" + digest + "\"";
+            this.gzipBody = gzip.length < body.length ? gzip : null;
+            this.gzipETag = "\"" + digest + "-" + GZIP + "\"";
+        }
+
+        // octets retenus par l'entrée
+        int weight() {
+            return body.length + (gzipBody == null ? 0 : gzipBody.length);
+        }
+
+        private static byte[] gzip(byte[] body) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4 + 64);
+            try (GZIPOutputStream out = new GZIPOutputStream(compressed) {
+                {
+                    // compression faite une fois par entrée : le meilleur taux plutôt que la vitesse
+                    def.setLevel(Deflater.BEST_COMPRESSION);
+                }
+            }) {
+                out.write(body);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return compressed.toByteArray();
+        }
+    }
+}
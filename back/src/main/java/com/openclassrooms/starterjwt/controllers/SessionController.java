@@ -1,15 +1,32 @@
 package com.openclassrooms.starterjwt.controllers;
 
 
+import com.openclassrooms.starterjwt.cache.SessionListCache;
+import com.openclassrooms.starterjwt.cache.SessionListCache.SerializedResponse;
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.dto.SessionPageDto;
+import com.openclassrooms.starterjwt.dto.SessionSummaryDto;
+import com.openclassrooms.starterjwt.dto.WaitlistPositionDto;
 import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.payload.request.SessionCursor;
+import com.openclassrooms.starterjwt.services.EntityVersions;
 import com.openclassrooms.starterjwt.services.SessionService;
+import com.openclassrooms.starterjwt.services.WaitlistService;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.validation.Valid;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
@@ -17,18 +34,27 @@ import java.util.List;
 @RequestMapping("/api/session")
 @Log4j2
 public class SessionController {
+    private static final String ISO_SECONDS = "yyyy-MM-dd'T'HH:mm:ssXXX";
+
     private final SessionMapper sessionMapper;
     private final SessionService sessionService;
+    private final WaitlistService waitlistService;
+    private final SessionListCache sessionListCache;
 
 
     public SessionController(SessionService sessionService,
-                             SessionMapper sessionMapper) {
+                             SessionMapper sessionMapper,
+                             WaitlistService waitlistService,
+                             SessionListCache sessionListCache) {
         this.sessionMapper = sessionMapper;
         this.sessionService = sessionService;
+        this.waitlistService = waitlistService;
+        this.sessionListCache = sessionListCache;
     }
 
+    // version calculée depuis la session en cache : un client à jour reçoit un 304, sans mapping ni sérialisation
     @GetMapping("/{id}")
-    public ResponseEntity<?> findById(@PathVariable("id") String id) {
+    public ResponseEntity<?> findById(@PathVariable("id") String id, WebRequest request) {
         try {
             Session session = this.sessionService.getById(Long.valueOf(id));
 
@@ -36,17 +62,68 @@ public class SessionController {
                 return ResponseEntity.notFound().build();
             }
 
-            return ResponseEntity.ok().body(this.sessionMapper.toDto(session));
+            String version = EntityVersions.of(session);
+            if (request.checkNotModified(version)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(version).cacheControl(CacheControl.noCache()).build();
+            }
+
+            return ResponseEntity.ok()
+                    .eTag(version)
+                    .cacheControl(CacheControl.noCache())
+                    .body(this.sessionMapper.toDto(session));
         } catch (NumberFormatException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    // octets JSON (ou gzip) mis en cache par combinaison de paramètres, avec leur ETag : un client à jour reçoit un 304
     @GetMapping()
-    public ResponseEntity<?> findAll() {
-        List<Session> sessions = this.sessionService.findAll();
+    public ResponseEntity<byte[]> findAll(@RequestParam(value = "unpaged", defaultValue = "false") boolean unpaged,
+                                          @RequestParam(value = "participants", defaultValue = "false") boolean participants,
+                                          @RequestParam(value = "cursor", required = false) String cursor,
+                                          @RequestParam(value = "limit", required = false) Integer limit,
+                                          @RequestParam(value = "from", required = false)
+                                          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME, fallbackPatterns = ISO_SECONDS) Date from,
+                                          @RequestParam(value = "to", required = false)
+                                          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME, fallbackPatterns = ISO_SECONDS) Date to,
+                                          @RequestParam(value = "teacherId", required = false) Long teacherId,
+                                          @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        SerializedResponse response;
+        if (unpaged) {
+            // ancien comportement (liste complète), uniquement sur demande explicite ; pagination et filtres ignorés
+            response = this.sessionListCache.get(Arrays.asList(true, participants),
+                    () -> this.sessionService.findAllSummaries(participants));
+        } else {
+            // clé normalisée : curseur décodé (un jeton invalide est refusé avant le cache) et taille de page effective
+            SessionCursor position = SessionCursor.decode(cursor);
+            int pageSize = SessionService.pageSize(limit);
+            response = this.sessionListCache.get(
+                    Arrays.asList(false, participants, position == null ? null : position.getDate().getTime(),
+                            position == null ? null : position.getId(), pageSize, from, to, teacherId),
+                    () -> loadPage(participants, position, pageSize, from, to, teacherId));
+        }
 
-        return ResponseEntity.ok().body(this.sessionMapper.toDto(sessions));
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (response.getGzipBody() != null && SessionListCache.acceptsGzip(acceptEncoding)) {
+            return builder.eTag(response.getGzipETag())
+                    .header(HttpHeaders.CONTENT_ENCODING, SessionListCache.GZIP)
+                    .body(response.getGzipBody());
+        }
+        return builder.eTag(response.getETag()).body(response.getBody());
+    }
+
+    // les écrans de liste reçoivent des résumés (nombre de participants, ids sur demande), sans entité User
+    private SessionPageDto loadPage(boolean participants, SessionCursor cursor, int pageSize,
+                                    Date from, Date to, Long teacherId) {
+        Slice<SessionSummaryDto> page = this.sessionService.findSummaryPage(
+                cursor, pageSize, from, to, teacherId, participants);
+        List<SessionSummaryDto> sessions = page.getContent();
+        String nextCursor = page.hasNext() ? SessionCursor.of(sessions.get(sessions.size() - 1)).encode() : null;
+
+        return new SessionPageDto(sessions, nextCursor, page.getSize());
     }
 
     @PostMapping()
@@ -73,12 +150,7 @@ public class SessionController {
     @DeleteMapping("{id}")
     public ResponseEntity<?> save(@PathVariable("id") String id) {
         try {
-            Session session = this.sessionService.getById(Long.valueOf(id));
-
-            if (session == null) {
-                return ResponseEntity.notFound().build();
-            }
-
+            // NotFoundException (404) si la session n'existe pas
             this.sessionService.delete(Long.parseLong(id));
             return ResponseEntity.ok().build();
         } catch (NumberFormatException e) {
@@ -107,4 +179,37 @@ public class SessionController {
             return ResponseEntity.badRequest().build();
         }
     }
+
+    @PostMapping("{id}/waitlist/{userId}")
+    public ResponseEntity<?> joinWaitlist(@PathVariable("id") String id, @PathVariable("userId") String userId) {
+        try {
+            WaitlistPositionDto position = this.sessionService.joinWaitlist(Long.parseLong(id), Long.parseLong(userId));
+
+            return ResponseEntity.ok().body(position);
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("{id}/waitlist/{userId}")
+    public ResponseEntity<?> waitlistPosition(@PathVariable("id") String id, @PathVariable("userId") String userId) {
+        try {
+            WaitlistPositionDto position = this.waitlistService.getPosition(Long.parseLong(id), Long.parseLong(userId));
+
+            return ResponseEntity.ok().body(position);
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @DeleteMapping("{id}/waitlist/{userId}")
+    public ResponseEntity<?> leaveWaitlist(@PathVariable("id") String id, @PathVariable("userId") String userId) {
+        try {
+            this.waitlistService.leave(Long.parseLong(id), Long.parseLong(userId));
+
+            return ResponseEntity.ok().build();
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
 }
@@ -3,8 +3,11 @@ package com.openclassrooms.starterjwt.controllers;
 import com.openclassrooms.starterjwt.mapper.TeacherMapper;
 import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.services.TeacherService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import java.util.List;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
@@ -21,25 +24,45 @@ public class TeacherController {
         this.teacherService = teacherService;
     }
 
+    // la version du catalogue sert d'ETag : un client à jour reçoit un 304 sans corps, avant tout mapping
     @GetMapping("/{id}")
-    public ResponseEntity<?> findById(@PathVariable("id") String id) {
+    public ResponseEntity<?> findById(@PathVariable("id") String id, WebRequest request) {
         try {
+            String version = this.teacherService.version();
             Teacher teacher = this.teacherService.findById(Long.valueOf(id));
 
             if (teacher == null) {
                 return ResponseEntity.notFound().build();
             }
 
-            return ResponseEntity.ok().body(this.teacherMapper.toDto(teacher));
+            if (request.checkNotModified(version)) {
+                return notModified(version);
+            }
+
+            return ResponseEntity.ok()
+                    .eTag(version)
+                    .cacheControl(CacheControl.noCache())
+                    .body(this.teacherMapper.toDto(teacher));
         } catch (NumberFormatException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
     @GetMapping()
-    public ResponseEntity<?> findAll() {
+    public ResponseEntity<?> findAll(WebRequest request) {
+        String version = this.teacherService.version();
+        if (request.checkNotModified(version)) {
+            return notModified(version);
+        }
         List<Teacher> teachers = this.teacherService.findAll();
 
-        return ResponseEntity.ok().body(this.teacherMapper.toDto(teachers));
+        return ResponseEntity.ok()
+                .eTag(version)
+                .cacheControl(CacheControl.noCache())
+                .body(this.teacherMapper.toDto(teachers));
+    }
+
+    private static ResponseEntity<?> notModified(String version) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(version).cacheControl(CacheControl.noCache()).build();
     }
 }
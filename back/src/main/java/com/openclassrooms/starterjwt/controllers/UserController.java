@@ -2,12 +2,15 @@ package com.openclassrooms.starterjwt.controllers;
 
 import com.openclassrooms.starterjwt.mapper.UserMapper;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.services.EntityVersions;
 import com.openclassrooms.starterjwt.services.UserService;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.Objects;
 
@@ -25,8 +28,9 @@ public class UserController {
         this.userService = userService;
     }
 
+    // version calculée depuis l'utilisateur (cache de second niveau) : un client à jour reçoit un 304, sans mapping
     @GetMapping("/{id}")
-    public ResponseEntity<?> findById(@PathVariable("id") String id) {
+    public ResponseEntity<?> findById(@PathVariable("id") String id, WebRequest request) {
         try {
             User user = this.userService.findById(Long.valueOf(id));
 
@@ -34,7 +38,15 @@ public class UserController {
                 return ResponseEntity.notFound().build();
             }
 
-            return ResponseEntity.ok().body(this.userMapper.toDto(user));
+            String version = EntityVersions.of(user);
+            if (request.checkNotModified(version)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(version).cacheControl(CacheControl.noCache()).build();
+            }
+
+            return ResponseEntity.ok()
+                    .eTag(version)
+                    .cacheControl(CacheControl.noCache())
+                    .body(this.userMapper.toDto(user));
         } catch (NumberFormatException e) {
             return ResponseEntity.badRequest().build();
         }
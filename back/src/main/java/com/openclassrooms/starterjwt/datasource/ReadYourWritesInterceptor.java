@@ -0,0 +1,117 @@
+package com.openclassrooms.starterjwt.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.persistence.CacheStoreMode;
+import javax.persistence.EntityManagerFactory;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lecture de ses propres écritures malgré le retard de la réplique : pendant une requête de modification
+ * (POST, PUT, PATCH, DELETE) d'un utilisateur authentifié, puis pendant la fenêtre qui la suit, toutes ses lectures
+ * vont au primaire. Les requêtes anonymes (connexion, inscription) ne sont pas concernées.
+ * <p>
+ * Une écriture vide aussi des caches partagés (cache sessions, SessionListCache, cache Hibernate) : pendant la même
+ * fenêtre, les lectures des autres utilisateurs restent sur la réplique, mais les rechargements de ces caches
+ * ({@link ReplicaRoutingDataSource#refill}) vont au primaire et ce qu'elles lisent n'est pas mis dans le cache
+ * Hibernate. L'auteur ne se voit donc pas servir depuis un cache l'état antérieur à son écriture.
+ */
+public class ReadYourWritesInterceptor implements HandlerInterceptor {
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS", "TRACE");
+
+    private static final String STORE_MODE = "javax.persistence.cache.storeMode";
+
+    private final Clock clock;
+
+    private final long windowMillis;
+
+    // null sans JPA : seuls les caches applicatifs sont protégés
+    private final EntityManagerFactory entityManagerFactory;
+
+    // utilisateurs ayant écrit pendant la fenêtre ; taille bornée, une entrée évincée ne coûte que des lectures au primaire
+    private final Cache<String, Boolean> recentWriters;
+
+    // fin de la fenêtre ouverte par la dernière écriture, tous utilisateurs confondus (millisecondes de clock)
+    private final AtomicLong refillsOnPrimaryUntil = new AtomicLong(Long.MIN_VALUE);
+
+    public ReadYourWritesInterceptor(Duration window, Clock clock, EntityManagerFactory entityManagerFactory) {
+        this.clock = clock;
+        this.windowMillis = window.toMillis();
+        this.entityManagerFactory = entityManagerFactory;
+        this.recentWriters = Caffeine.newBuilder()
+                .ticker(() -> TimeUnit.MILLISECONDS.toNanos(clock.millis()))
+                .expireAfterWrite(window)
+                .maximumSize(100_000)
+                .build();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String user = currentUser();
+        if (user != null && isMutation(request)) {
+            openWindow(user);
+        }
+
+        if (user != null && this.recentWriters.getIfPresent(user) != null) {
+            ReplicaRoutingDataSource.requirePrimary();
+        } else if (this.refillsOnPrimaryUntil.get() > this.clock.millis()) {
+            ReplicaRoutingDataSource.requirePrimaryForRefills();
+            skipSecondLevelCachePuts();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        String user = currentUser();
+        // la fenêtre court à partir de la fin de l'écriture
+        if (user != null && isMutation(request)) {
+            openWindow(user);
+        }
+        ReplicaRoutingDataSource.clearPrimaryRequired();
+    }
+
+    private void openWindow(String user) {
+        this.recentWriters.put(user, Boolean.TRUE);
+        this.refillsOnPrimaryUntil.accumulateAndGet(this.clock.millis() + this.windowMillis, Math::max);
+    }
+
+    // EntityManager de la requête (open-in-view), ouvert avant cet intercepteur et fermé avec elle. Lecture du cache
+    // conservée, écriture évitée (CacheMode.GET) ; réglé par la propriété JPA, que find() relit à chaque appel
+    private void skipSecondLevelCachePuts() {
+        if (this.entityManagerFactory == null) {
+            return;
+        }
+        EntityManagerHolder holder =
+                (EntityManagerHolder) TransactionSynchronizationManager.getResource(this.entityManagerFactory);
+        if (holder != null) {
+            holder.getEntityManager().setProperty(STORE_MODE, CacheStoreMode.BYPASS);
+        }
+    }
+
+    private static boolean isMutation(HttpServletRequest request) {
+        return !SAFE_METHODS.contains(request.getMethod());
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
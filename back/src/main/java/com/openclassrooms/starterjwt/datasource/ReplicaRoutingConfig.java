@@ -0,0 +1,103 @@
+package com.openclassrooms.starterjwt.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Réplique en lecture (oc.app.replica.*), en plus du primaire spring.datasource.* : sans oc.app.replica.url, la
+ * DataSource unique de Spring Boot reste en place.
+ * <p>
+ * Les deux pools Hikari restent internes à l'unique bean DataSource, pour que ses enveloppes (métriques, journal SQL)
+ * ne voient chaque requête SQL qu'une fois.
+ */
+@Configuration
+@ConditionalOnProperty("oc.app.replica.url")
+public class ReplicaRoutingConfig implements WebMvcConfigurer {
+
+    @Value("${oc.app.replica.readYourWritesMs:5000}")
+    private long readYourWritesMs;
+
+    // fournis à la demande : la fabrique JPA dépend de la DataSource déclarée ici
+    private final ObjectProvider<Clock> clock;
+
+    private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+
+    public ReplicaRoutingConfig(ObjectProvider<Clock> clock, ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        this.clock = clock;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties, Environment environment) {
+        Binder binder = Binder.get(environment);
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+
+        HikariDataSource replica = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(environment.getRequiredProperty("oc.app.replica.url"))
+                .username(environment.getProperty("oc.app.replica.username"))
+                .password(environment.getProperty("oc.app.replica.password"))
+                .build();
+        replica.setPoolName("replica");
+        binder.bind("oc.app.replica.hikari", Bindable.ofInstance(replica));
+
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replica));
+    }
+
+    /**
+     * Une connexion par transaction : par défaut, la session Hibernate de la requête (open-in-view) garderait la
+     * connexion de sa première transaction, et donc la même cible, pour les suivantes.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer replicaConnectionHandling() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    // le pool primaire est relié par Spring Boot (cible par défaut de la DataSource), la réplique ici
+    @Bean
+    public MeterBinder replicaPoolMetrics(DataSource dataSource) {
+        return registry -> {
+            try {
+                HikariDataSource replica = (HikariDataSource) dataSource.unwrap(ReplicaRoutingDataSource.class).getReplica();
+                replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // après l'intercepteur open-in-view, dont il règle l'EntityManager
+        registry.addInterceptor(new ReadYourWritesInterceptor(Duration.ofMillis(readYourWritesMs),
+                        clock.getIfAvailable(Clock::systemUTC), entityManagerFactory.getIfAvailable()))
+                .order(Ordered.LOWEST_PRECEDENCE);
+    }
+}
@@ -0,0 +1,79 @@
+package com.openclassrooms.starterjwt.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Envoie le travail des transactions en lecture seule (@Transactional(readOnly = true), lectures des repositories
+ * Spring Data) à la réplique, et tout le reste au primaire.
+ * <p>
+ * La cible est choisie à l'obtention de la connexion : cette DataSource doit être enveloppée dans une
+ * LazyConnectionDataSourceProxy, pour que la connexion ne soit obtenue qu'à la première requête SQL, une fois la
+ * transaction et son caractère lecture seule déclarés.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    enum Target {PRIMARY, REPLICA}
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private static final ThreadLocal<Boolean> REFILLS_ON_PRIMARY = new ThreadLocal<>();
+
+    private final DataSource replica;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica) {
+        this.replica = replica;
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    public DataSource getReplica() {
+        return replica;
+    }
+
+    /**
+     * Toutes les lectures du thread vont au primaire jusqu'à {@link #clearPrimaryRequired()} (lecture de ses écritures).
+     */
+    static void requirePrimary() {
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+    }
+
+    /**
+     * Seuls les rechargements de caches partagés du thread ({@link #refill}) vont au primaire, jusqu'à
+     * {@link #clearPrimaryRequired()}.
+     */
+    static void requirePrimaryForRefills() {
+        REFILLS_ON_PRIMARY.set(Boolean.TRUE);
+    }
+
+    static void clearPrimaryRequired() {
+        PRIMARY_REQUIRED.remove();
+        REFILLS_ON_PRIMARY.remove();
+    }
+
+    /**
+     * Recharge un cache partagé entre les requêtes : au primaire si une écriture récente l'exige (voir
+     * ReadYourWritesInterceptor), sinon selon la règle habituelle. Sans réplique, appelle simplement loader.
+     */
+    public static <T> T refill(Supplier<T> loader) {
+        if (REFILLS_ON_PRIMARY.get() == null || PRIMARY_REQUIRED.get() != null) {
+            return loader.get();
+        }
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+        try {
+            return loader.get();
+        } finally {
+            PRIMARY_REQUIRED.remove();
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() && PRIMARY_REQUIRED.get() == null
+                ? Target.REPLICA : Target.PRIMARY;
+    }
+}
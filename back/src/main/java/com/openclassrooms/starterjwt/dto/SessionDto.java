@@ -6,6 +6,7 @@ import lombok.NoArgsConstructor;
 
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
 import javax.validation.constraints.Size;
 import java.time.LocalDateTime;
 import java.util.Date;
@@ -31,6 +32,9 @@ public class SessionDto {
     @Size(max = 2500)
     private String description;
 
+    @Positive
+    private Integer capacity;
+
     private List<Long> users;
 
     private LocalDateTime createdAt;
@@ -0,0 +1,37 @@
+package com.openclassrooms.starterjwt.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionSummaryDto {
+    private Long id;
+
+    private String name;
+
+    private Date date;
+
+    private Long teacher_id;
+
+    private String description;
+
+    private Integer capacity;
+
+    private long participantCount;
+
+    // renseigné uniquement si les identifiants des participants sont demandés
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<Long> users;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+}
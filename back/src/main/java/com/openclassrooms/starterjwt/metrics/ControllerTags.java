@@ -0,0 +1,39 @@
+package com.openclassrooms.starterjwt.metrics;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.boot.actuate.metrics.web.servlet.WebMvcTagsContributor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Étiquettes controller / action (ex. SessionController / findById) ajoutées à http.server.requests,
+ * pour un histogramme de latence par méthode de contrôleur.
+ */
+@Component
+public class ControllerTags implements WebMvcTagsContributor {
+    static final Tags NONE = Tags.of(Tag.of("controller", "none"), Tag.of("action", "none"));
+
+    public static Tags of(Object handler) {
+        if (!(handler instanceof HandlerMethod)) {
+            return NONE;
+        }
+        HandlerMethod handlerMethod = (HandlerMethod) handler;
+        return Tags.of(Tag.of("controller", handlerMethod.getMethod().getDeclaringClass().getSimpleName()),
+                Tag.of("action", handlerMethod.getMethod().getName()));
+    }
+
+    @Override
+    public Iterable<Tag> getTags(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                 Throwable exception) {
+        return of(handler);
+    }
+
+    @Override
+    public Iterable<Tag> getLongRequestTags(HttpServletRequest request, Object handler) {
+        return of(handler);
+    }
+}
@@ -0,0 +1,57 @@
+package com.openclassrooms.starterjwt.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Publie, par méthode de contrôleur, la distribution des compteurs Hibernate de chaque requête
+ * (hibernate.request.statements, hibernate.request.entity.loads, hibernate.request.collection.fetches).
+ */
+public class HibernateRequestMetricsInterceptor implements HandlerInterceptor {
+    // bornes des histogrammes : 0 à 1 requête est le cas nominal, au-delà de 20 c'est un N+1
+    private static final double[] BUCKETS = {1, 2, 5, 10, 20, 50, 100};
+
+    private final MeterRegistry meterRegistry;
+
+    public HibernateRequestMetricsInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod) {
+            HibernateRequestStatistics.begin();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        HibernateRequestStatistics statistics = HibernateRequestStatistics.end();
+        if (statistics == null) {
+            return;
+        }
+        Tags tags = ControllerTags.of(handler);
+        summary("hibernate.request.statements", "Ordres SQL préparés par Hibernate pendant la requête", tags)
+                .record(statistics.getStatements());
+        summary("hibernate.request.entity.loads", "Entités chargées pendant la requête", tags)
+                .record(statistics.getEntityLoads());
+        summary("hibernate.request.collection.fetches", "Collections initialisées pendant la requête", tags)
+                .record(statistics.getCollectionFetches());
+    }
+
+    private DistributionSummary summary(String name, String description, Tags tags) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .tags(tags)
+                .serviceLevelObjectives(BUCKETS)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,58 @@
+package com.openclassrooms.starterjwt.metrics;
+
+import lombok.Getter;
+
+/**
+ * Compteurs Hibernate de la requête HTTP en cours : ordres SQL préparés, entités chargées, collections initialisées.
+ * <p>
+ * Une requête HTTP est traitée par un seul thread : les compteurs sont portés par le thread, ouverts et fermés par
+ * {@link HibernateRequestMetricsInterceptor}. Hors requête HTTP (tâches planifiées, démarrage), rien n'est compté.
+ * Les ordres passés directement par JdbcTemplate ne sont pas vus par Hibernate.
+ */
+@Getter
+public final class HibernateRequestStatistics {
+    private static final ThreadLocal<HibernateRequestStatistics> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+
+    private int entityLoads;
+
+    private int collectionFetches;
+
+    private HibernateRequestStatistics() {
+    }
+
+    static void begin() {
+        CURRENT.set(new HibernateRequestStatistics());
+    }
+
+    /**
+     * Retire et retourne les compteurs de la requête en cours, null si aucun n'était ouvert.
+     */
+    static HibernateRequestStatistics end() {
+        HibernateRequestStatistics statistics = CURRENT.get();
+        CURRENT.remove();
+        return statistics;
+    }
+
+    static void statementPrepared() {
+        HibernateRequestStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.statements++;
+        }
+    }
+
+    static void entityLoaded() {
+        HibernateRequestStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.entityLoads++;
+        }
+    }
+
+    static void collectionFetched() {
+        HibernateRequestStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.collectionFetches++;
+        }
+    }
+}
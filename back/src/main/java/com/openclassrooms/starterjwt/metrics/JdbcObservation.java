@@ -0,0 +1,88 @@
+package com.openclassrooms.starterjwt.metrics;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+/**
+ * Enveloppe JDBC (DataSource, Connection, Statement) qui passe chaque exécution d'ordre SQL à un observateur.
+ * Les autres appels, dont unwrap / isWrapperFor (métriques Hikari), sont délégués tels quels.
+ */
+final class JdbcObservation {
+
+    interface Observer {
+        /**
+         * @return le résultat de l'exécution, éventuellement enveloppé
+         */
+        Object executed(String sql, Execution execution) throws Throwable;
+    }
+
+    interface Execution {
+        Object proceed() throws Throwable;
+    }
+
+    private JdbcObservation() {
+    }
+
+    static DataSource observe(DataSource dataSource, Observer observer) {
+        return proxy(DataSource.class, dataSource, (target, method, args) -> {
+            Object result = invoke(target, method, args);
+            return result instanceof Connection ? connection((Connection) result, observer) : result;
+        });
+    }
+
+    private static Connection connection(Connection connection, Observer observer) {
+        return proxy(Connection.class, connection, (target, method, args) -> {
+            Object result = invoke(target, method, args);
+            String sql = sqlOf(args);
+            if (result instanceof CallableStatement) {
+                return statement(CallableStatement.class, (Statement) result, sql, observer);
+            }
+            if (result instanceof PreparedStatement) {
+                return statement(PreparedStatement.class, (Statement) result, sql, observer);
+            }
+            if (result instanceof Statement) {
+                return statement(Statement.class, (Statement) result, null, observer);
+            }
+            return result;
+        });
+    }
+
+    private static <T extends Statement> T statement(Class<T> type, Statement statement, String preparedSql,
+                                                     Observer observer) {
+        return proxy(type, statement, (target, method, args) -> {
+            if (!method.getName().startsWith("execute")) {
+                return invoke(target, method, args);
+            }
+            String sql = sqlOf(args);
+            return observer.executed(sql != null ? sql : preparedSql, () -> invoke(target, method, args));
+        });
+    }
+
+    private static String sqlOf(Object[] args) {
+        return args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+    }
+
+    static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> T proxy(Class<T> type, Object target, Handler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> handler.handle(target, method, args));
+    }
+
+    interface Handler {
+        Object handle(Object target, Method method, Object[] args) throws Throwable;
+    }
+}
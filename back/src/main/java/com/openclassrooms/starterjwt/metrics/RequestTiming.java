@@ -0,0 +1,133 @@
+package com.openclassrooms.starterjwt.metrics;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Minutage par phase de la requête HTTP en cours : auth, db, mapping, serialization, le reste étant compté dans app.
+ * <p>
+ * Les phases sont exclusives : une phase ouverte pendant une autre (SQL d'un chargement paresseux pendant le mapping)
+ * suspend la première, la somme des phases ne dépasse donc jamais la durée totale. Une requête HTTP étant traitée par
+ * un seul thread, le minutage est porté par le thread et ouvert par {@link RequestTimingFilter}. Hors requête minutée
+ * (minutage désactivé, tâches planifiées), {@link #enter(String)} et {@link #exit()} ne font rien.
+ */
+public final class RequestTiming {
+    public static final String AUTH = "auth";
+    public static final String DB = "db";
+    public static final String MAPPING = "mapping";
+    public static final String SERIALIZATION = "serialization";
+
+    static final String APP = "app";
+    static final String TOTAL = "total";
+
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+
+    private final long start = System.nanoTime();
+
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+
+    private final Deque<String> open = new ArrayDeque<>();
+
+    private long phaseStart;
+
+    private long end;
+
+    private int sqlStatements;
+
+    private RequestTiming() {
+    }
+
+    static RequestTiming begin() {
+        RequestTiming timing = new RequestTiming();
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    static void end(RequestTiming timing) {
+        timing.end = System.nanoTime();
+        CURRENT.remove();
+    }
+
+    public static void enter(String phase) {
+        RequestTiming timing = CURRENT.get();
+        if (timing != null) {
+            timing.push(phase);
+        }
+    }
+
+    public static void exit() {
+        RequestTiming timing = CURRENT.get();
+        if (timing != null) {
+            timing.pop();
+        }
+    }
+
+    static void sqlExecuted() {
+        RequestTiming timing = CURRENT.get();
+        if (timing != null) {
+            timing.sqlStatements++;
+        }
+    }
+
+    private void push(String phase) {
+        long now = System.nanoTime();
+        if (!open.isEmpty()) {
+            phases.merge(open.peek(), now - phaseStart, Long::sum);
+        }
+        open.push(phase);
+        phaseStart = now;
+    }
+
+    private void pop() {
+        if (open.isEmpty()) {
+            return;
+        }
+        long now = System.nanoTime();
+        phases.merge(open.pop(), now - phaseStart, Long::sum);
+        phaseStart = now;
+    }
+
+    public long totalNanos() {
+        return (end != 0 ? end : System.nanoTime()) - start;
+    }
+
+    public int getSqlStatements() {
+        return sqlStatements;
+    }
+
+    /**
+     * Durées exclusives en nanosecondes, dans l'ordre de première ouverture, suivies de app (le reste).
+     */
+    public Map<String, Long> phases() {
+        Map<String, Long> all = new LinkedHashMap<>(phases);
+        long measured = phases.values().stream().mapToLong(Long::longValue).sum();
+        all.put(APP, Math.max(0, totalNanos() - measured));
+        return all;
+    }
+
+    /**
+     * Valeur de l'en-tête Server-Timing, ex. : auth;dur=0.412, db;dur=3.101;desc="2 SQL", app;dur=1.0, total;dur=4.5
+     */
+    public String toServerTiming() {
+        StringJoiner header = new StringJoiner(", ");
+        phases().forEach((phase, nanos) -> header.add(phase + ";dur=" + millis(nanos)
+                + (DB.equals(phase) ? ";desc=\"" + sqlStatements + " SQL\"" : "")));
+        header.add(TOTAL + ";dur=" + millis(totalNanos()));
+        return header.toString();
+    }
+
+    String toSummary() {
+        StringJoiner summary = new StringJoiner(", ", "[", "]");
+        phases().forEach((phase, nanos) -> summary.add(phase + "=" + millis(nanos) + " ms"));
+        return summary + " " + sqlStatements + " requête(s) SQL";
+    }
+
+    // point décimal quelle que soit la locale : la valeur est lue par les navigateurs
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000d);
+    }
+}
@@ -0,0 +1,84 @@
+package com.openclassrooms.starterjwt.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.mapper.EntityMapper;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+/**
+ * Minutage par phase (oc.app.serverTiming, oc.app.slowRequestMs). Désactivé, aucun de ces beans n'existe :
+ * ni filtre, ni DataSource ou mappers enveloppés, et les appels RequestTiming restants se limitent à un ThreadLocal vide.
+ */
+@Configuration
+@ConditionalOnExpression("${oc.app.serverTiming:false} or ${oc.app.slowRequestMs:0} > 0")
+public class RequestTimingConfig {
+
+    @Bean
+    public FilterRegistrationBean<RequestTimingFilter> requestTimingFilter(
+            @Value("${oc.app.serverTiming:false}") boolean serverTiming,
+            @Value("${oc.app.slowRequestMs:0}") long slowRequestMs) {
+        FilterRegistrationBean<RequestTimingFilter> registration =
+                new FilterRegistrationBean<>(new RequestTimingFilter(serverTiming, slowRequestMs));
+        // avant la sécurité, pour que la phase auth soit dans la requête minutée
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    @Bean
+    public TimedJackson2HttpMessageConverter timedJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        return new TimedJackson2HttpMessageConverter(objectMapper);
+    }
+
+    @Bean
+    public static BeanPostProcessor requestTimingPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource) {
+                    return timed((DataSource) bean);
+                }
+                if (bean instanceof EntityMapper) {
+                    return timed(bean, RequestTiming.MAPPING);
+                }
+                return bean;
+            }
+        };
+    }
+
+    static Object timed(Object bean, String phase) {
+        ProxyFactory proxyFactory = new ProxyFactory(bean);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice((MethodInterceptor) invocation -> {
+            RequestTiming.enter(phase);
+            try {
+                return invocation.proceed();
+            } finally {
+                RequestTiming.exit();
+            }
+        });
+        return proxyFactory.getProxy();
+    }
+
+    /**
+     * DataSource dont chaque exécution d'ordre SQL est comptée et minutée dans la phase db.
+     */
+    static DataSource timed(DataSource dataSource) {
+        return JdbcObservation.observe(dataSource, (sql, execution) -> {
+            RequestTiming.sqlExecuted();
+            RequestTiming.enter(RequestTiming.DB);
+            try {
+                return execution.proceed();
+            } finally {
+                RequestTiming.exit();
+            }
+        });
+    }
+}
@@ -0,0 +1,56 @@
+package com.openclassrooms.starterjwt.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ouvre le minutage de chaque requête, émet l'en-tête Server-Timing et journalise les requêtes lentes.
+ * <p>
+ * Pour que la sérialisation figure dans l'en-tête, la réponse est mise en mémoire tampon jusqu'à la fin du
+ * traitement ; sans en-tête demandé (journal seul), elle n'est pas retenue.
+ */
+public class RequestTimingFilter extends OncePerRequestFilter {
+    static final String SERVER_TIMING = "Server-Timing";
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestTimingFilter.class);
+
+    private final boolean serverTiming;
+
+    private final long slowRequestNanos;
+
+    public RequestTimingFilter(boolean serverTiming, long slowRequestMs) {
+        this.serverTiming = serverTiming;
+        this.slowRequestNanos = slowRequestMs > 0 ? TimeUnit.MILLISECONDS.toNanos(slowRequestMs) : Long.MAX_VALUE;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper buffered = serverTiming ? new ContentCachingResponseWrapper(response) : null;
+        RequestTiming timing = RequestTiming.begin();
+        try {
+            filterChain.doFilter(request, buffered != null ? buffered : response);
+        } finally {
+            RequestTiming.end(timing);
+            if (buffered != null) {
+                if (!buffered.isCommitted()) {
+                    buffered.setHeader(SERVER_TIMING, timing.toServerTiming());
+                }
+                buffered.copyBodyToResponse();
+            }
+            if (timing.totalNanos() >= slowRequestNanos) {
+                logger.warn("Requête lente : {} {} -> {} en {} ms {}", request.getMethod(), request.getRequestURI(),
+                        response.getStatus(), TimeUnit.NANOSECONDS.toMillis(timing.totalNanos()), timing.toSummary());
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.openclassrooms.starterjwt.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Journal des requêtes SQL lentes (au-delà du seuil) et d'un échantillon des autres, à la place de show-sql :
+ * durée d'exécution, lignes lues ou modifiées, méthode de contrôleur appelante et ordre SQL sans ses valeurs.
+ * <p>
+ * Le journal passe par un appender asynchrone (logback-spring.xml) : l'écriture ne bloque pas le thread de la requête.
+ */
+class SlowQueryLog implements JdbcObservation.Observer {
+    private static final Logger logger = LoggerFactory.getLogger(SlowQueryLog.class);
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+
+    private static final Pattern NUMERIC_LITERAL = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?");
+
+    private final long thresholdNanos;
+
+    private final double sampleRate;
+
+    SlowQueryLog(long thresholdMs, double sampleRate) {
+        this.thresholdNanos = thresholdMs > 0 ? TimeUnit.MILLISECONDS.toNanos(thresholdMs) : Long.MAX_VALUE;
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public Object executed(String sql, JdbcObservation.Execution execution) throws Throwable {
+        long start = System.nanoTime();
+        Object result = execution.proceed();
+        long nanos = System.nanoTime() - start;
+
+        boolean slow = nanos >= thresholdNanos;
+        if (!slow && (sampleRate <= 0 || ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            return result;
+        }
+
+        String caller = caller();
+        if (result instanceof ResultSet) {
+            // lignes connues à la fermeture du ResultSet, après leur lecture par l'appelant
+            return countingRows((ResultSet) result, rows -> log(slow, sql, nanos, rows, caller));
+        }
+        log(slow, sql, nanos, rowsOf(result), caller);
+        return result;
+    }
+
+    private static void log(boolean slow, String sql, long nanos, long rows, String caller) {
+        String duration = String.format(Locale.ROOT, "%.3f", nanos / 1_000_000d);
+        String lines = rows < 0 ? "?" : String.valueOf(rows);
+        if (slow) {
+            logger.warn("Requête SQL lente : {} ms, {} ligne(s), {} : {}", duration, lines, caller, redact(sql));
+        } else {
+            logger.info("Requête SQL échantillonnée : {} ms, {} ligne(s), {} : {}", duration, lines, caller, redact(sql));
+        }
+    }
+
+    /**
+     * Ordre SQL sans les valeurs écrites en dur : les paramètres liés (?) ne sont de toute façon jamais journalisés.
+     */
+    static String redact(String sql) {
+        if (sql == null) {
+            return "?";
+        }
+        return NUMERIC_LITERAL.matcher(STRING_LITERAL.matcher(sql).replaceAll("?")).replaceAll("?");
+    }
+
+    /**
+     * Méthode de contrôleur traitant la requête HTTP en cours ; à défaut la requête elle-même, ou le thread.
+     */
+    static String caller() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return "thread " + Thread.currentThread().getName();
+        }
+        Object handler = attributes.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE,
+                RequestAttributes.SCOPE_REQUEST);
+        if (handler instanceof HandlerMethod) {
+            HandlerMethod handlerMethod = (HandlerMethod) handler;
+            return handlerMethod.getMethod().getDeclaringClass().getSimpleName() + "." + handlerMethod.getMethod().getName();
+        }
+        if (attributes instanceof ServletRequestAttributes) {
+            ServletRequestAttributes servletAttributes = (ServletRequestAttributes) attributes;
+            return servletAttributes.getRequest().getMethod() + " " + servletAttributes.getRequest().getRequestURI();
+        }
+        return "thread " + Thread.currentThread().getName();
+    }
+
+    private static long rowsOf(Object result) {
+        if (result instanceof Number) {
+            return ((Number) result).longValue();
+        }
+        if (result instanceof int[]) {
+            return Arrays.stream((int[]) result).asLongStream().sum();
+        }
+        if (result instanceof long[]) {
+            return Arrays.stream((long[]) result).sum();
+        }
+        // execute() : résultat de type inconnu
+        return -1;
+    }
+
+    private static ResultSet countingRows(ResultSet resultSet, RowsConsumer onClose) {
+        long[] rows = {0};
+        boolean[] closed = {false};
+        return JdbcObservation.proxy(ResultSet.class, resultSet, (target, method, args) -> {
+            Object result = JdbcObservation.invoke(target, method, args);
+            if ("next".equals(method.getName()) && Boolean.TRUE.equals(result)) {
+                rows[0]++;
+            } else if ("close".equals(method.getName()) && !closed[0]) {
+                closed[0] = true;
+                onClose.accept(rows[0]);
+            }
+            return result;
+        });
+    }
+
+    private interface RowsConsumer {
+        void accept(long rows);
+    }
+}
@@ -0,0 +1,29 @@
+package com.openclassrooms.starterjwt.metrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Journal des requêtes SQL lentes ou échantillonnées (oc.app.slowQueryMs, oc.app.slowQuerySampleRate).
+ */
+@Configuration
+@ConditionalOnExpression("${oc.app.slowQueryMs:0} > 0 or ${oc.app.slowQuerySampleRate:0} > 0")
+public class SlowQueryLogConfig {
+
+    @Bean
+    public static BeanPostProcessor slowQueryLogPostProcessor(@Value("${oc.app.slowQueryMs:0}") long slowQueryMs,
+                                                              @Value("${oc.app.slowQuerySampleRate:0}") double sampleRate) {
+        SlowQueryLog slowQueryLog = new SlowQueryLog(slowQueryMs, sampleRate);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource ? JdbcObservation.observe((DataSource) bean, slowQueryLog) : bean;
+            }
+        };
+    }
+}
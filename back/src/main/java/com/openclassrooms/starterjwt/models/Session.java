@@ -10,6 +10,7 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import javax.persistence.*;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
 import javax.validation.constraints.Size;
 import java.time.LocalDateTime;
 import java.util.Date;
@@ -17,6 +18,9 @@ import java.util.List;
 
 @Entity
 @Table(name = "SESSIONS")
+// plans de chargement par cas d'usage (SessionRepository) : les participants ne sont lus que là où ils sont servis
+@NamedEntityGraph(name = Session.WITH_PARTICIPANTS_GRAPH,
+        attributeNodes = {@NamedAttributeNode("teacher"), @NamedAttributeNode("users")})
 @EntityListeners(AuditingEntityListener.class)
 @Data
 @Accessors(chain = true)
@@ -26,6 +30,8 @@ import java.util.List;
 @AllArgsConstructor
 @ToString
 public class Session {
+    public static final String WITH_PARTICIPANTS_GRAPH = "Session.withParticipants";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -41,11 +47,18 @@ public class Session {
     @Size(max = 2500)
     private String description;
 
+    // nombre maximum de participants, null pour une session sans limite
+    @Positive
+    private Integer capacity;
+
     @OneToOne
     @JoinColumn(name = "teacher_id", referencedColumnName = "id")
     private Teacher teacher;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    // chargés à la demande, ou avec la session par le plan WITH_PARTICIPANTS_GRAPH ; hors toString(), qu'un log
+    // déclencherait sinon le chargement (ou une LazyInitializationException hors session)
+    @ToString.Exclude
+    @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
             name = "PARTICIPATE",
             joinColumns = @JoinColumn( name = "session_id" ),
@@ -2,6 +2,8 @@ package com.openclassrooms.starterjwt.models;
 
 import lombok.*;
 import lombok.experimental.Accessors;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -12,6 +14,8 @@ import javax.validation.constraints.Size;
 import java.time.LocalDateTime;
 
 @Entity
+// cache de second niveau : quasiment jamais modifié, l'entrée est simplement invalidée à l'écriture
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE, region = "teachers")
 @Table(name = "TEACHERS")
 @EntityListeners(AuditingEntityListener.class)
 @Data
@@ -0,0 +1,47 @@
+package com.openclassrooms.starterjwt.payload.request;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.dto.SessionSummaryDto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Position opaque dans le listing paginé des sessions (ordre date, id).
+ * Le token échangé avec le client est la forme base64url de "epochMillis:id".
+ */
+@Getter
+@AllArgsConstructor
+public class SessionCursor {
+  private final Date date;
+
+  private final Long id;
+
+  public static SessionCursor of(SessionSummaryDto session) {
+    return new SessionCursor(session.getDate(), session.getId());
+  }
+
+  public static SessionCursor decode(String token) {
+    if (token == null || token.isEmpty()) {
+      return null;
+    }
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+      int separator = raw.indexOf(':');
+      long millis = Long.parseLong(raw.substring(0, separator));
+      long id = Long.parseLong(raw.substring(separator + 1));
+      return new SessionCursor(new Date(millis), id);
+    } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+      throw new BadRequestException();
+    }
+  }
+
+  public String encode() {
+    String raw = date.getTime() + ":" + id;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,90 @@
+package com.openclassrooms.starterjwt.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Accès direct à la table PARTICIPATE : une inscription ne charge ni la session ni ses participants.
+ */
+@Repository
+public class ParticipationRepository {
+    // requêtes exposées au test des plans d'exécution (QueryPlanTest)
+    static final String FIND_STATE_SQL = "SELECT"
+            + " (SELECT COUNT(*) FROM SESSIONS WHERE id = :sessionId) AS session_count,"
+            + " (SELECT COUNT(*) FROM USERS WHERE id = :userId) AS user_count,"
+            + " (SELECT COUNT(*) FROM PARTICIPATE WHERE session_id = :sessionId AND user_id = :userId) AS participation_count";
+
+    static final String SESSION_EXISTS_SQL = "SELECT COUNT(*) FROM SESSIONS WHERE id = :sessionId";
+
+    static final String INSERT_IF_SEAT_AVAILABLE_SQL = "INSERT INTO PARTICIPATE (session_id, user_id)"
+            + " SELECT s.id, :userId FROM SESSIONS s"
+            + " WHERE s.id = :sessionId"
+            + " AND EXISTS (SELECT 1 FROM USERS u WHERE u.id = :userId)"
+            + " AND NOT EXISTS (SELECT 1 FROM PARTICIPATE p WHERE p.session_id = :sessionId AND p.user_id = :userId)"
+            + " AND (s.capacity IS NULL"
+            + " OR s.capacity > (SELECT COUNT(*) FROM PARTICIPATE c WHERE c.session_id = :sessionId))";
+
+    static final String HAS_SEAT_AVAILABLE_SQL = "SELECT COUNT(*) FROM SESSIONS s WHERE s.id = :sessionId"
+            + " AND (s.capacity IS NULL"
+            + " OR s.capacity > (SELECT COUNT(*) FROM PARTICIPATE c WHERE c.session_id = :sessionId))";
+
+    static final String DELETE_SQL = "DELETE FROM PARTICIPATE WHERE session_id = :sessionId AND user_id = :userId";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public ParticipationRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Vérifie en une seule requête l'existence de la session, de l'utilisateur et de l'inscription.
+     */
+    public ParticipationState findState(Long sessionId, Long userId) {
+        return jdbcTemplate.queryForObject(FIND_STATE_SQL, params(sessionId, userId),
+                (rs, rowNum) -> new ParticipationState(
+                        rs.getLong("session_count") > 0,
+                        rs.getLong("user_count") > 0,
+                        rs.getLong("participation_count") > 0));
+    }
+
+    public boolean sessionExists(Long sessionId) {
+        Long count = jdbcTemplate.queryForObject(SESSION_EXISTS_SQL, params(sessionId, null), Long.class);
+        return count != null && count > 0;
+    }
+
+    /**
+     * Inscription atomique : la ligne n'est insérée que si la session et l'utilisateur existent, que l'utilisateur
+     * n'est pas déjà inscrit et qu'il reste une place. Retourne 0 si l'une de ces conditions n'est pas remplie.
+     */
+    public int insertIfSeatAvailable(Long sessionId, Long userId) {
+        return jdbcTemplate.update(INSERT_IF_SEAT_AVAILABLE_SQL, params(sessionId, userId));
+    }
+
+    public boolean hasSeatAvailable(Long sessionId) {
+        Long count = jdbcTemplate.queryForObject(HAS_SEAT_AVAILABLE_SQL, params(sessionId, null), Long.class);
+        return count != null && count > 0;
+    }
+
+    public int delete(Long sessionId, Long userId) {
+        return jdbcTemplate.update(DELETE_SQL, params(sessionId, userId));
+    }
+
+    private static MapSqlParameterSource params(Long sessionId, Long userId) {
+        return new MapSqlParameterSource()
+                .addValue("sessionId", sessionId)
+                .addValue("userId", userId);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class ParticipationState {
+        private final boolean sessionFound;
+
+        private final boolean userFound;
+
+        private final boolean participating;
+    }
+}
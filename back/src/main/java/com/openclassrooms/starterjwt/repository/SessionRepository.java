@@ -1,9 +1,29 @@
 package com.openclassrooms.starterjwt.repository;
 
 import com.openclassrooms.starterjwt.models.Session;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
+/**
+ * Les participants (Session.users) ne sont pas chargés par défaut : chaque cas d'usage a sa méthode et son plan.
+ * Les écrans de liste et les inscriptions passent par SQL (SessionSummaryRepository, ParticipationRepository),
+ * sans entité Session ; findById (suppression) ne lit que la session et son professeur.
+ */
 @Repository
 public interface SessionRepository  extends JpaRepository<Session, Long> {
+    /**
+     * Détail : session, professeur et participants en une requête, entité complète même détachée (cache).
+     */
+    @EntityGraph(Session.WITH_PARTICIPANTS_GRAPH)
+    Optional<Session> findDetailById(Long id);
+
+    /**
+     * Modification : session et participants actuels lus en une requête, pour que la fusion qui suit
+     * les trouve dans le contexte de persistance.
+     */
+    @EntityGraph(Session.WITH_PARTICIPANTS_GRAPH)
+    Optional<Session> findForUpdateById(Long id);
 }
@@ -0,0 +1,133 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.dto.SessionSummaryDto;
+import com.openclassrooms.starterjwt.payload.request.SessionCursor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Lecture "résumé" des sessions : une requête SQL (page de SESSIONS jointe à PARTICIPATE), plus une par tranche de
+ * {@value #PARTICIPANTS_BATCH} sessions si les identifiants des participants sont demandés, sans hydrater d'entité User.
+ * <p>
+ * Les identifiants ne sont pas agrégés en SQL (GROUP_CONCAT) : MySQL tronque le résultat à group_concat_max_len
+ * (1024 octets par défaut) sans erreur, ce qui rendrait une liste partielle, voire un identifiant coupé.
+ */
+@Repository
+public class SessionSummaryRepository {
+    // borne la taille de la liste IN d'une requête de participants (liste complète : toutes les sessions)
+    static final int PARTICIPANTS_BATCH = 1_000;
+
+    // clé primaire (session_id, user_id) : lecture dans l'ordre de l'index
+    static final String PARTICIPANTS_SQL = "SELECT p.session_id, p.user_id FROM PARTICIPATE p"
+            + " WHERE p.session_id IN (:ids) ORDER BY p.session_id, p.user_id";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public SessionSummaryRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @param cursor           position de départ (exclue), null pour la première page
+     * @param limit            nombre maximum de sessions, null pour toutes
+     * @param withParticipants ajoute les identifiants des participants à chaque résumé
+     */
+    public List<SessionSummaryDto> findPage(SessionCursor cursor, Integer limit, Date from, Date to, Long teacherId,
+                                            boolean withParticipants) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql = pageSql(cursor, limit, from, to, teacherId, params);
+
+        List<SessionSummaryDto> sessions = jdbcTemplate.query(sql, params, SessionSummaryRepository::mapRow);
+        if (withParticipants) {
+            addParticipants(sessions);
+        }
+        return sessions;
+    }
+
+    /**
+     * Requête d'une page de résumés, ses paramètres ajoutés à params ; exposée au test des plans d'exécution.
+     */
+    static String pageSql(SessionCursor cursor, Integer limit, Date from, Date to, Long teacherId,
+                          MapSqlParameterSource params) {
+        StringBuilder page = new StringBuilder(
+                "SELECT x.id, x.name, x.date, x.description, x.teacher_id, x.capacity, x.created_at, x.updated_at"
+                        + " FROM SESSIONS x WHERE 1 = 1");
+
+        if (teacherId != null) {
+            page.append(" AND x.teacher_id = :teacherId");
+            params.addValue("teacherId", teacherId);
+        }
+        if (from != null) {
+            page.append(" AND x.date >= :from");
+            params.addValue("from", new Timestamp(from.getTime()));
+        }
+        if (to != null) {
+            page.append(" AND x.date < :to");
+            params.addValue("to", new Timestamp(to.getTime()));
+        }
+        if (cursor != null) {
+            page.append(" AND (x.date > :cursorDate OR (x.date = :cursorDate AND x.id > :cursorId))");
+            params.addValue("cursorDate", new Timestamp(cursor.getDate().getTime()));
+            params.addValue("cursorId", cursor.getId());
+        }
+        page.append(" ORDER BY x.date, x.id");
+        if (limit != null) {
+            page.append(" LIMIT :limit");
+            params.addValue("limit", limit);
+        }
+
+        return "SELECT s.id, s.name, s.date, s.description, s.teacher_id, s.capacity, s.created_at, s.updated_at,"
+                + " COUNT(p.user_id) AS participant_count"
+                + " FROM (" + page + ") s"
+                + " LEFT JOIN PARTICIPATE p ON p.session_id = s.id"
+                + " GROUP BY s.id, s.name, s.date, s.description, s.teacher_id, s.capacity, s.created_at, s.updated_at"
+                + " ORDER BY s.date, s.id";
+    }
+
+    private void addParticipants(List<SessionSummaryDto> sessions) {
+        Map<Long, List<Long>> participants = new HashMap<>();
+        for (int start = 0; start < sessions.size(); start += PARTICIPANTS_BATCH) {
+            List<Long> ids = sessions.subList(start, Math.min(start + PARTICIPANTS_BATCH, sessions.size())).stream()
+                    .map(SessionSummaryDto::getId)
+                    .collect(Collectors.toList());
+            jdbcTemplate.query(PARTICIPANTS_SQL, new MapSqlParameterSource("ids", ids), (RowCallbackHandler) rs ->
+                    participants.computeIfAbsent(rs.getLong("session_id"), id -> new ArrayList<>())
+                            .add(rs.getLong("user_id")));
+        }
+        sessions.forEach(session ->
+                session.setUsers(participants.getOrDefault(session.getId(), Collections.emptyList())));
+    }
+
+    private static SessionSummaryDto mapRow(ResultSet rs, int rowNum) throws SQLException {
+        Timestamp date = rs.getTimestamp("date");
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        Timestamp updatedAt = rs.getTimestamp("updated_at");
+        Long teacherId = rs.getObject("teacher_id") != null ? rs.getLong("teacher_id") : null;
+        Integer capacity = rs.getObject("capacity") != null ? rs.getInt("capacity") : null;
+
+        return new SessionSummaryDto(
+                rs.getLong("id"),
+                rs.getString("name"),
+                date != null ? new Date(date.getTime()) : null,
+                teacherId,
+                rs.getString("description"),
+                capacity,
+                rs.getLong("participant_count"),
+                null,
+                createdAt != null ? createdAt.toLocalDateTime() : null,
+                updatedAt != null ? updatedAt.toLocalDateTime() : null);
+    }
+}
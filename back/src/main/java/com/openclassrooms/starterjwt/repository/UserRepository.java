@@ -2,14 +2,25 @@ package com.openclassrooms.starterjwt.repository;
 
 import java.util.Optional;
 
+import javax.persistence.QueryHint;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import com.openclassrooms.starterjwt.models.User;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_REGION;
+
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+  // requête de chaque connexion : identifiant servi par le cache de requêtes (si activé), invalidé à toute écriture dans USERS
+  @QueryHints({
+      @QueryHint(name = HINT_CACHEABLE, value = "true"),
+      @QueryHint(name = HINT_CACHE_REGION, value = "usersByEmail")
+  })
   Optional<User> findByEmail(String email);
 
-  Boolean existsByEmail(String email); 
+  Boolean existsByEmail(String email);
 }
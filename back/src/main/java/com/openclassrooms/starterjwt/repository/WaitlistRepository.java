@@ -0,0 +1,30 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.models.Waitlist;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface WaitlistRepository extends JpaRepository<Waitlist, Long> {
+    // tête de file : index (session_id, id)
+    Optional<Waitlist> findFirstBySessionIdOrderByIdAsc(Long sessionId);
+
+    // index unique (session_id, user_id)
+    Optional<Waitlist> findBySessionIdAndUserId(Long sessionId, Long userId);
+
+    // rang dans la file : parcours de l'index (session_id, id) jusqu'à l'entrée de l'utilisateur
+    long countBySessionIdAndIdLessThanEqual(Long sessionId, Long id);
+
+    @Modifying
+    @Query("delete from Waitlist w where w.sessionId = :sessionId and w.userId = :userId")
+    int deleteBySessionIdAndUserId(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    @Modifying
+    @Query("delete from Waitlist w where w.sessionId = :sessionId")
+    int deleteBySessionId(@Param("sessionId") Long sessionId);
+}
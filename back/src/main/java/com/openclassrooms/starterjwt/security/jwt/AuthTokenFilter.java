@@ -17,7 +17,10 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.openclassrooms.starterjwt.metrics.RequestTiming;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
+import com.openclassrooms.starterjwt.security.services.UserRevocationService;
 
 public class AuthTokenFilter extends OncePerRequestFilter {
   @Autowired
@@ -26,17 +29,20 @@ public class AuthTokenFilter extends OncePerRequestFilter {
   @Autowired
   private UserDetailsServiceImpl userDetailsService;
 
+  @Autowired
+  private UserRevocationService userRevocationService;
+
   private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
   @Override
   protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
       throws ServletException, IOException {
+    RequestTiming.enter(RequestTiming.AUTH);
     try {
       String jwt = parseJwt(request);
-      if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-        String username = jwtUtils.getUserNameFromJwtToken(jwt);
-
-        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+      JwtClaims claims = jwt != null ? jwtUtils.getVerifiedClaims(jwt) : null;
+      UserDetails userDetails = claims != null ? principalOf(claims) : null;
+      if (userDetails != null) {
         UsernamePasswordAuthenticationToken authentication =
             new UsernamePasswordAuthenticationToken(
                 userDetails,
@@ -48,11 +54,38 @@ public class AuthTokenFilter extends OncePerRequestFilter {
       }
     } catch (Exception e) {
       logger.error("Cannot set user authentication: {}", e);
+    } finally {
+      RequestTiming.exit();
     }
 
     filterChain.doFilter(request, response);
   }
 
+  /**
+   * Principal reconstruit à partir du jeton seul ; la base n'est lue que pour les jetons émis sans
+   * les informations utilisateur, ou par la vérification (en cache) que l'utilisateur existe encore.
+   *
+   * @return null si l'utilisateur a été supprimé
+   */
+  private UserDetails principalOf(JwtClaims claims) {
+    if (claims.getId() == null) {
+      return userDetailsService.loadUserByUsername(claims.getUsername());
+    }
+
+    if (!userRevocationService.isActive(claims.getId())) {
+      logger.warn("JWT token of deleted user {}", claims.getId());
+      return null;
+    }
+
+    return UserDetailsImpl.builder()
+        .id(claims.getId())
+        .username(claims.getUsername())
+        .firstName(claims.getFirstName())
+        .lastName(claims.getLastName())
+        .admin(claims.getAdmin())
+        .build();
+  }
+
   private String parseJwt(HttpServletRequest request) {
     String headerAuth = request.getHeader("Authorization");
 
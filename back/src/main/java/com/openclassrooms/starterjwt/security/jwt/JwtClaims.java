@@ -0,0 +1,28 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.util.Date;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Contenu d'un JWT dont la signature et l'expiration ont été vérifiées.
+ * Les jetons émis avant l'ajout des informations utilisateur n'ont que username et les dates (id null).
+ */
+@Getter
+@AllArgsConstructor
+public class JwtClaims {
+  private final String username;
+
+  private final Long id;
+
+  private final String firstName;
+
+  private final String lastName;
+
+  private final Boolean admin;
+
+  private final Date issuedAt;
+
+  private final Date expiration;
+}
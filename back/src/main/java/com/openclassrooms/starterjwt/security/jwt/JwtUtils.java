@@ -1,6 +1,11 @@
 package com.openclassrooms.starterjwt.security.jwt;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -8,6 +13,9 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 
 import io.jsonwebtoken.*;
@@ -16,32 +24,101 @@ import io.jsonwebtoken.*;
 public class JwtUtils {
   private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
+  static final int CLAIMS_CACHE_SIZE = 10_000;
+
+  static final String ID_CLAIM = "id";
+
+  static final String FIRST_NAME_CLAIM = "firstName";
+
+  static final String LAST_NAME_CLAIM = "lastName";
+
+  static final String ADMIN_CLAIM = "admin";
+
   @Value("${oc.app.jwtSecret}")
   private String jwtSecret;
 
   @Value("${oc.app.jwtExpirationMs}")
   private int jwtExpirationMs;
 
+  // jetons déjà vérifiés, indexés par empreinte SHA-256 ; chaque entrée disparaît à l'expiration du jeton
+  private final Cache<String, JwtClaims> verifiedClaims = Caffeine.newBuilder()
+      .maximumSize(CLAIMS_CACHE_SIZE)
+      .expireAfter(new Expiry<String, JwtClaims>() {
+        @Override
+        public long expireAfterCreate(String digest, JwtClaims claims, long currentTime) {
+          return TimeUnit.MILLISECONDS.toNanos(Math.max(0, claims.getExpiration().getTime() - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String digest, JwtClaims claims, long currentTime, long currentDuration) {
+          return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String digest, JwtClaims claims, long currentTime, long currentDuration) {
+          return currentDuration;
+        }
+      })
+      .build();
+
   public String generateJwtToken(Authentication authentication) {
 
     UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
 
+    // le jeton porte tout le principal : l'authentification des requêtes suivantes se passe de la base
     return Jwts.builder()
         .setSubject((userPrincipal.getUsername()))
+        .claim(ID_CLAIM, userPrincipal.getId())
+        .claim(FIRST_NAME_CLAIM, userPrincipal.getFirstName())
+        .claim(LAST_NAME_CLAIM, userPrincipal.getLastName())
+        .claim(ADMIN_CLAIM, Boolean.TRUE.equals(userPrincipal.getAdmin()))
         .setIssuedAt(new Date())
         .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
         .signWith(SignatureAlgorithm.HS512, jwtSecret)
         .compact();
   }
 
-  public String getUserNameFromJwtToken(String token) {
-    return Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(token).getBody().getSubject();
+  /**
+   * Vérifie la signature et l'expiration du jeton et en extrait le contenu, en une seule analyse.
+   * Un jeton déjà vérifié est servi depuis le cache, sans nouveau calcul de signature.
+   *
+   * @return le contenu du jeton, null s'il est invalide ou expiré
+   */
+  public JwtClaims getVerifiedClaims(String authToken) {
+    if (authToken == null || authToken.isEmpty()) {
+      return null;
+    }
+
+    String digest = digest(authToken);
+    JwtClaims cached = verifiedClaims.getIfPresent(digest);
+    if (cached != null) {
+      return cached;
+    }
+
+    JwtClaims claims = parse(authToken);
+    // un jeton sans expiration n'est pas mis en cache : il serait conservé indéfiniment
+    if (claims != null && claims.getExpiration() != null) {
+      verifiedClaims.put(digest, claims);
+    }
+    return claims;
+  }
+
+  long cachedTokenCount() {
+    verifiedClaims.cleanUp();
+    return verifiedClaims.estimatedSize();
   }
 
-  public boolean validateJwtToken(String authToken) {
+  // analyse et vérification sans cache (bancs d'essai)
+  JwtClaims parse(String authToken) {
     try {
-      Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(authToken);
-      return true;
+      Claims body = Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(authToken).getBody();
+      return new JwtClaims(body.getSubject(),
+          body.get(ID_CLAIM, Long.class),
+          body.get(FIRST_NAME_CLAIM, String.class),
+          body.get(LAST_NAME_CLAIM, String.class),
+          body.get(ADMIN_CLAIM, Boolean.class),
+          body.getIssuedAt(),
+          body.getExpiration());
     } catch (SignatureException e) {
       logger.error("Invalid JWT signature: {}", e.getMessage());
     } catch (MalformedJwtException e) {
@@ -54,6 +131,16 @@ public class JwtUtils {
       logger.error("JWT claims string is empty: {}", e.getMessage());
     }
 
-    return false;
+    return null;
+  }
+
+  private static String digest(String token) {
+    try {
+      byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+      return Base64.getEncoder().encodeToString(hash);
+    } catch (NoSuchAlgorithmException e) {
+      // SHA-256 est fourni par toute JVM
+      throw new IllegalStateException(e);
+    }
   }
 }
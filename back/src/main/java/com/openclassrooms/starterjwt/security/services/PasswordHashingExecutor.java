@@ -0,0 +1,102 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.openclassrooms.starterjwt.exception.ServiceUnavailableException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Pool borné dédié aux calculs BCrypt (connexion, inscription).
+ * <p>
+ * Les threads Tomcat ne font plus le calcul eux-mêmes : un pic de connexions ne mobilise que ce pool,
+ * dimensionné sur le nombre de cœurs. Quand sa file est pleine, la demande est refusée aussitôt
+ * ({@link ServiceUnavailableException}, 503) au lieu de faire attendre les autres requêtes.
+ */
+@Component
+public class PasswordHashingExecutor {
+  private final ThreadPoolExecutor executor;
+
+  private final Timer hashTimer;
+
+  private final Counter rejectedCounter;
+
+  public PasswordHashingExecutor(MeterRegistry meterRegistry,
+      @Value("${oc.app.passwordHashingThreads:0}") int threads,
+      @Value("${oc.app.passwordHashingQueue:0}") int queueCapacity) {
+    int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    int capacity = queueCapacity > 0 ? queueCapacity : poolSize * 8;
+    AtomicInteger threadCount = new AtomicInteger();
+
+    this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(capacity),
+        runnable -> {
+          Thread thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        },
+        new ThreadPoolExecutor.AbortPolicy());
+
+    this.hashTimer = Timer.builder("auth.password.hash")
+        .description("Durée d'un calcul BCrypt, hors attente dans la file")
+        .register(meterRegistry);
+    this.rejectedCounter = Counter.builder("auth.password.rejected")
+        .description("Demandes refusées, pool de hachage saturé")
+        .register(meterRegistry);
+    Gauge.builder("auth.password.queue", executor, e -> e.getQueue().size())
+        .description("Calculs BCrypt en attente")
+        .register(meterRegistry);
+    Gauge.builder("auth.password.active", executor, ThreadPoolExecutor::getActiveCount)
+        .description("Calculs BCrypt en cours")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Exécute le calcul sur le pool et attend son résultat.
+   *
+   * @throws ServiceUnavailableException si le pool et sa file sont pleins
+   */
+  public <T> T execute(Callable<T> hashing) {
+    Future<T> future;
+    try {
+      future = executor.submit(() -> hashTimer.recordCallable(hashing));
+    } catch (RejectedExecutionException e) {
+      rejectedCounter.increment();
+      throw new ServiceUnavailableException();
+    }
+
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+}
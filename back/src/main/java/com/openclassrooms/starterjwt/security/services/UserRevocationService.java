@@ -0,0 +1,69 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+
+/**
+ * Vérifie qu'un utilisateur authentifié par son jeton existe toujours.
+ * <p>
+ * Le résultat est gardé en mémoire (oc.app.jwtUserCheckTtlMs) ; une suppression faite par cette instance
+ * est prise en compte immédiatement via {@link #revoke(Long)}, celle d'une autre instance à l'expiration de l'entrée.
+ * En mode oc.app.jwtUserCheck=none, seules les révocations locales sont consultées : aucune requête SQL.
+ * <p>
+ * Les révocations sont conservées à part, pendant oc.app.jwtExpirationMs : tout jeton émis avant la suppression a
+ * expiré lorsqu'elles sont oubliées.
+ */
+@Service
+public class UserRevocationService {
+  public static final String CHECK_CACHED = "cached";
+
+  public static final String CHECK_NONE = "none";
+
+  private final UserRepository userRepository;
+
+  private final boolean databaseCheck;
+
+  private final Cache<Long, Boolean> activeUsers;
+
+  private final Cache<Long, Boolean> revokedUsers;
+
+  public UserRevocationService(UserRepository userRepository,
+      @Value("${oc.app.jwtUserCheck:" + CHECK_CACHED + "}") String mode,
+      @Value("${oc.app.jwtUserCheckTtlMs:60000}") long ttlMs,
+      @Value("${oc.app.jwtExpirationMs}") long jwtExpirationMs) {
+    if (!CHECK_CACHED.equals(mode) && !CHECK_NONE.equals(mode)) {
+      throw new IllegalArgumentException("oc.app.jwtUserCheck doit valoir " + CHECK_CACHED + " ou " + CHECK_NONE);
+    }
+    this.userRepository = userRepository;
+    this.databaseCheck = CHECK_CACHED.equals(mode);
+    this.activeUsers = Caffeine.newBuilder()
+        .maximumSize(10_000)
+        .expireAfterWrite(ttlMs, TimeUnit.MILLISECONDS)
+        .build();
+    // sans limite de taille : une révocation évincée rendrait valides les jetons de l'utilisateur supprimé
+    this.revokedUsers = Caffeine.newBuilder()
+        .expireAfterWrite(jwtExpirationMs, TimeUnit.MILLISECONDS)
+        .build();
+  }
+
+  public boolean isActive(Long userId) {
+    if (revokedUsers.getIfPresent(userId) != null) {
+      return false;
+    }
+    if (!databaseCheck) {
+      return true;
+    }
+    return activeUsers.get(userId, userRepository::existsById);
+  }
+
+  public void revoke(Long userId) {
+    revokedUsers.put(userId, true);
+    activeUsers.invalidate(userId);
+  }
+}
@@ -0,0 +1,51 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.User;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Versions des entités servies par l'API, utilisées comme ETag : calculées depuis l'entité déjà chargée, sans mapping
+ * ni sérialisation, identiques d'une instance à l'autre pour un même contenu.
+ * <p>
+ * updatedAt seul ne suffit pas : la colonne est à la seconde près, et une inscription (ligne de PARTICIPATE) ne modifie
+ * pas la session. L'empreinte couvre donc aussi les champs exposés et, pour une session, ses participants.
+ */
+public final class EntityVersions {
+    private EntityVersions() {
+    }
+
+    public static String of(Session session) {
+        StringBuilder content = new StringBuilder();
+        append(content, session.getName(), session.getDescription(),
+                session.getDate() == null ? null : session.getDate().getTime(), session.getCapacity(),
+                session.getTeacher() == null ? null : session.getTeacher().getId(), session.getUpdatedAt());
+        // PARTICIPATE est relue sans ORDER BY : participants triés par identifiant
+        long[] participants = session.getUsers() == null ? new long[0]
+                : session.getUsers().stream().mapToLong(User::getId).sorted().toArray();
+        for (long participant : participants) {
+            append(content, participant);
+        }
+        return session.getId() + "-" + participants.length + "-" + digest(content);
+    }
+
+    public static String of(User user) {
+        StringBuilder content = new StringBuilder();
+        append(content, user.getEmail(), user.getLastName(), user.getFirstName(), user.isAdmin(), user.getUpdatedAt());
+        return user.getId() + "-" + digest(content);
+    }
+
+    private static void append(StringBuilder content, Object... fields) {
+        for (Object field : fields) {
+            content.append(field).append('|');
+        }
+    }
+
+    // ETag fort : empreinte de 128 bits (comme SessionListCache), une collision servirait un 304 à tort
+    private static String digest(StringBuilder content) {
+        return DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
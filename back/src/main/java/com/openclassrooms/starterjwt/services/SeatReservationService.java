@@ -0,0 +1,113 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.dto.WaitlistPositionDto;
+import com.openclassrooms.starterjwt.repository.ParticipationRepository;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Réservation de places sans surréservation.
+ * <p>
+ * La base garantit la règle (INSERT conditionnel sur la capacité restante) ; un verrou en mémoire par session
+ * (réparti sur un nombre fixe de verrous) sérialise les demandes concurrentes d'une même instance, afin qu'elles
+ * ne se gênent pas dans la base (verrous InnoDB, interblocages puis nouvelles tentatives en rafale).
+ * Le verrou est conservé jusqu'au commit de la transaction d'inscription.
+ */
+@Service
+public class SeatReservationService {
+    static final int STRIPES = 64;
+
+    static final int MAX_ATTEMPTS = 3;
+
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    private final ParticipationRepository participationRepository;
+
+    private final WaitlistService waitlistService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public SeatReservationService(ParticipationRepository participationRepository,
+                                  WaitlistService waitlistService,
+                                  PlatformTransactionManager transactionManager) {
+        this.participationRepository = participationRepository;
+        this.waitlistService = waitlistService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * @return true si la place est réservée, false si la session est complète, inconnue
+     * ou si l'utilisateur est inconnu ou déjà inscrit
+     */
+    public boolean reserve(Long sessionId, Long userId) {
+        // dans une transaction déjà ouverte par l'appelant, un échec la rend non réutilisable : pas de nouvel essai
+        boolean ownTransaction = !TransactionSynchronizationManager.isActualTransactionActive();
+        ReentrantLock lock = lockFor(sessionId);
+        lock.lock();
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    Integer inserted = transactionTemplate.execute(
+                            status -> participationRepository.insertIfSeatAvailable(sessionId, userId));
+                    return inserted != null && inserted > 0;
+                } catch (ConcurrencyFailureException e) {
+                    // interblocage avec une autre instance : nouvel essai borné
+                    if (!ownTransaction || attempt >= MAX_ATTEMPTS) {
+                        throw e;
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Libère la place de l'utilisateur et, dans la même transaction, la donne à la tête de la file d'attente.
+     *
+     * @return true si l'utilisateur était inscrit
+     */
+    public boolean release(Long sessionId, Long userId) {
+        ReentrantLock lock = lockFor(sessionId);
+        lock.lock();
+        try {
+            Boolean released = transactionTemplate.execute(status -> {
+                if (participationRepository.delete(sessionId, userId) == 0) {
+                    return false;
+                }
+                waitlistService.promoteHead(sessionId);
+                return true;
+            });
+            return Boolean.TRUE.equals(released);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Inscrit l'utilisateur en file d'attente sous le verrou de la session, comme {@link #release} : une place libérée
+     * entre le constat « session complète » et l'ajout en file ne peut plus laisser l'utilisateur en attente, la
+     * libération voit l'entrée et la promeut.
+     */
+    public WaitlistPositionDto joinWaitlist(Long sessionId, Long userId) {
+        ReentrantLock lock = lockFor(sessionId);
+        lock.lock();
+        try {
+            return transactionTemplate.execute(status -> waitlistService.join(sessionId, userId));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    ReentrantLock lockFor(Long sessionId) {
+        return locks[Long.hashCode(sessionId) & (STRIPES - 1)];
+    }
+}
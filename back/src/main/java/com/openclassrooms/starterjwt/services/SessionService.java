@@ -1,81 +1,172 @@
 package com.openclassrooms.starterjwt.services;
 
+import com.openclassrooms.starterjwt.cache.SessionListCache;
+import com.openclassrooms.starterjwt.datasource.ReplicaRoutingDataSource;
+import com.openclassrooms.starterjwt.dto.SessionSummaryDto;
+import com.openclassrooms.starterjwt.dto.WaitlistPositionDto;
 import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.exception.ConflictException;
 import com.openclassrooms.starterjwt.exception.NotFoundException;
 import com.openclassrooms.starterjwt.models.Session;
-import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.payload.request.SessionCursor;
+import com.openclassrooms.starterjwt.repository.ParticipationRepository;
+import com.openclassrooms.starterjwt.repository.ParticipationRepository.ParticipationState;
 import com.openclassrooms.starterjwt.repository.SessionRepository;
-import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.repository.SessionSummaryRepository;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Date;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 public class SessionService {
+    public static final int DEFAULT_PAGE_SIZE = 20;
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    // cache de getById, vidé pour la session concernée par chaque écriture (voir spring.cache.caffeine.spec)
+    public static final String SESSIONS_CACHE = "sessions";
+
     private final SessionRepository sessionRepository;
 
-    private final UserRepository userRepository;
+    private final SessionSummaryRepository sessionSummaryRepository;
+
+    private final ParticipationRepository participationRepository;
+
+    private final SeatReservationService seatReservationService;
+
+    private final WaitlistService waitlistService;
 
-    public SessionService(SessionRepository sessionRepository, UserRepository userRepository) {
+    // réponses sérialisées de la liste des sessions, invalidées par chaque écriture réussie
+    private final SessionListCache sessionListCache;
+
+    public SessionService(SessionRepository sessionRepository,
+                          SessionSummaryRepository sessionSummaryRepository,
+                          ParticipationRepository participationRepository,
+                          SeatReservationService seatReservationService,
+                          WaitlistService waitlistService,
+                          SessionListCache sessionListCache) {
         this.sessionRepository = sessionRepository;
-        this.userRepository = userRepository;
+        this.sessionSummaryRepository = sessionSummaryRepository;
+        this.participationRepository = participationRepository;
+        this.seatReservationService = seatReservationService;
+        this.waitlistService = waitlistService;
+        this.sessionListCache = sessionListCache;
     }
 
+    // une absence peut avoir été mise en cache pour cet identifiant
+    @CacheEvict(cacheNames = SESSIONS_CACHE, key = "#result.id")
     public Session create(Session session) {
         if (session == null) {
             throw new IllegalArgumentException("La Session ne peut pas être nulle");
         }
-        return this.sessionRepository.save(session);
+        Session created = this.sessionRepository.save(session);
+        this.sessionListCache.invalidate();
+        return created;
     }
 
+    // session et professeur seulement : les lignes de PARTICIPATE sont supprimées sans lire les participants
+    @Transactional
+    @CacheEvict(cacheNames = SESSIONS_CACHE, key = "#id")
     public void delete(Long id) {
-        this.sessionRepository.deleteById(id);
+        Session session = this.sessionRepository.findById(id).orElseThrow(NotFoundException::new);
+        this.waitlistService.clear(id);
+        this.sessionRepository.delete(session);
+        this.sessionListCache.invalidate();
+    }
+
+    @Transactional(readOnly = true)
+    public List<SessionSummaryDto> findAllSummaries(boolean withParticipants) {
+        return this.sessionSummaryRepository.findPage(null, null, null, null, null, withParticipants);
     }
 
-    public List<Session> findAll() {
-        return this.sessionRepository.findAll();
+    /**
+     * Taille de page effective : limit (DEFAULT_PAGE_SIZE par défaut), plafonnée à MAX_PAGE_SIZE.
+     */
+    public static int pageSize(Integer limit) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1) {
+            throw new BadRequestException();
+        }
+        return Math.min(pageSize, MAX_PAGE_SIZE);
     }
 
+    @Transactional(readOnly = true)
+    public Slice<SessionSummaryDto> findSummaryPage(SessionCursor cursor, Integer limit, Date from, Date to,
+                                                    Long teacherId, boolean withParticipants) {
+        int pageSize = pageSize(limit);
+
+        // une ligne de plus que la page pour savoir s'il existe une page suivante, sans COUNT
+        List<SessionSummaryDto> rows = this.sessionSummaryRepository.findPage(
+                cursor, pageSize + 1, from, to, teacherId, withParticipants);
+        boolean hasNext = rows.size() > pageSize;
+
+        return new SliceImpl<>(hasNext ? rows.subList(0, pageSize) : rows, PageRequest.of(0, pageSize), hasNext);
+    }
+
+    // sync : un seul chargement concurrent par identifiant, qu'une éviction ne peut pas devancer
+    @Cacheable(cacheNames = SESSIONS_CACHE, key = "#id", sync = true)
+    @Transactional(readOnly = true)
     public Session getById(Long id) {
-        return this.sessionRepository.findById(id).orElse(null);
+        return ReplicaRoutingDataSource.refill(() -> this.sessionRepository.findDetailById(id).orElse(null));
     }
 
+    // la session et ses participants sont lus d'abord en une requête : la fusion les compare sans autre lecture
+    @Transactional
+    @CacheEvict(cacheNames = SESSIONS_CACHE, key = "#id")
     public Session update(Long id, Session session) {
+        this.sessionRepository.findForUpdateById(id);
         session.setId(id);
-        return this.sessionRepository.save(session);
+        Session updated = this.sessionRepository.save(session);
+        this.sessionListCache.invalidate();
+        return updated;
     }
 
+    // un seul INSERT conditionnel sur PARTICIPATE ; la cause d'un refus (404, 400 ou 409) n'est recherchée qu'en cas d'échec
+    @CacheEvict(cacheNames = SESSIONS_CACHE, key = "#id")
     public void participate(Long id, Long userId) {
-        Session session = this.sessionRepository.findById(id).orElse(null);
-        User user = this.userRepository.findById(userId).orElse(null);
-        if (session == null || user == null) {
+        if (this.seatReservationService.reserve(id, userId)) {
+            this.sessionListCache.invalidate();
+            return;
+        }
+
+        ParticipationState state = this.participationRepository.findState(id, userId);
+        if (!state.isSessionFound() || !state.isUserFound()) {
             throw new NotFoundException();
         }
 
-        boolean alreadyParticipate = session.getUsers().stream().anyMatch(o -> o.getId().equals(userId));
-        if(alreadyParticipate) {
+        if (state.isParticipating()) {
             throw new BadRequestException();
         }
 
-        session.getUsers().add(user);
-
-        this.sessionRepository.save(session);
+        // session complète
+        throw new ConflictException();
     }
 
+    // un DELETE sur PARTICIPATE suivi de la promotion de la tête de file d'attente ;
+    // la cause d'un échec (404 ou 400) n'est recherchée que si rien n'a été supprimé
+    @CacheEvict(cacheNames = SESSIONS_CACHE, key = "#id")
     public void noLongerParticipate(Long id, Long userId) {
-        Session session = this.sessionRepository.findById(id).orElse(null);
-        if (session == null) {
-            throw new NotFoundException();
+        if (this.seatReservationService.release(id, userId)) {
+            this.sessionListCache.invalidate();
+            return;
         }
 
-        boolean alreadyParticipate = session.getUsers().stream().anyMatch(o -> o.getId().equals(userId));
-        if(!alreadyParticipate) {
-            throw new BadRequestException();
+        if (!this.participationRepository.sessionExists(id)) {
+            throw new NotFoundException();
         }
 
-        session.setUsers(session.getUsers().stream().filter(user -> !user.getId().equals(userId)).collect(Collectors.toList()));
+        throw new BadRequestException();
+    }
 
-        this.sessionRepository.save(session);
+    // sous le verrou de la session, pour ne pas croiser une désinscription qui libère une place
+    public WaitlistPositionDto joinWaitlist(Long id, Long userId) {
+        return this.seatReservationService.joinWaitlist(id, userId);
     }
 }
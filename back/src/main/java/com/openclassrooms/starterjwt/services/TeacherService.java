@@ -2,23 +2,115 @@ package com.openclassrooms.starterjwt.services;
 
 import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import lombok.Getter;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
 
+/**
+ * Catalogue des professeurs servi depuis la mémoire.
+ * <p>
+ * La table TEACHERS ne change presque jamais : elle est chargée en entier dans un instantané immuable
+ * (index par identifiant et liste triée), remplacé d'un bloc à chaque rafraîchissement. Les lectures se contentent
+ * de lire la référence courante, sans verrou. Les instances de Teacher de l'instantané ne doivent pas être modifiées.
+ */
 @Service
 public class TeacherService {
     private final TeacherRepository teacherRepository;
 
+    private volatile Snapshot snapshot;
+
     public TeacherService(TeacherRepository teacherRepository) {
         this.teacherRepository = teacherRepository;
     }
 
     public List<Teacher> findAll() {
-        return this.teacherRepository.findAll();
+        return current().getTeachers();
     }
 
+    @Transactional(readOnly = true)
     public Teacher findById(Long id) {
-        return this.teacherRepository.findById(id).orElse(null);
+        Teacher teacher = current().getTeachersById().get(id);
+        if (teacher != null) {
+            return teacher;
+        }
+
+        // professeur absent de l'instantané : peut-être ajouté depuis le dernier rafraîchissement
+        teacher = this.teacherRepository.findById(id).orElse(null);
+        if (teacher != null) {
+            refresh();
+        }
+        return teacher;
+    }
+
+    /**
+     * Version du catalogue, identique d'une instance à l'autre pour un même contenu.
+     * À lire avant les données : une réponse n'annonce jamais une version plus récente que son contenu.
+     */
+    public String version() {
+        return current().getVersion();
+    }
+
+    /**
+     * Recharge le catalogue ; à appeler après toute modification de la table TEACHERS.
+     */
+    @Scheduled(fixedDelayString = "${oc.app.teacherCatalogRefreshMs:300000}",
+            initialDelayString = "${oc.app.teacherCatalogRefreshMs:300000}")
+    @Transactional(readOnly = true)
+    public synchronized void refresh() {
+        this.snapshot = new Snapshot(this.teacherRepository.findAll());
+    }
+
+    private Snapshot current() {
+        Snapshot current = this.snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (this.snapshot == null) {
+                    refresh();
+                }
+                current = this.snapshot;
+            }
+        }
+        return current;
+    }
+
+    @Getter
+    public static class Snapshot {
+        private final List<Teacher> teachers;
+
+        private final Map<Long, Teacher> teachersById;
+
+        private final String version;
+
+        Snapshot(List<Teacher> teachers) {
+            List<Teacher> sorted = teachers.stream()
+                    .sorted(Comparator.comparing(Teacher::getId))
+                    .collect(Collectors.toList());
+            Map<Long, Teacher> byId = new HashMap<>();
+            sorted.forEach(teacher -> byId.put(teacher.getId(), teacher));
+
+            this.teachers = Collections.unmodifiableList(sorted);
+            this.teachersById = Collections.unmodifiableMap(byId);
+            this.version = fingerprint(sorted);
+        }
+
+        private static String fingerprint(List<Teacher> teachers) {
+            CRC32 crc = new CRC32();
+            for (Teacher teacher : teachers) {
+                String row = teacher.getId() + "|" + teacher.getLastName() + "|" + teacher.getFirstName()
+                        + "|" + teacher.getUpdatedAt() + "\n";
+                crc.update(row.getBytes(StandardCharsets.UTF_8));
+            }
+            return teachers.size() + "-" + Long.toHexString(crc.getValue());
+        }
     }
 }
@@ -2,21 +2,38 @@ package com.openclassrooms.starterjwt.services;
 
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.services.UserRevocationService;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
 
 @Service
 public class UserService {
     private final UserRepository userRepository;
 
-    public UserService(UserRepository userRepository) {
+    private final UserRevocationService userRevocationService;
+
+    public UserService(UserRepository userRepository, UserRevocationService userRevocationService) {
         this.userRepository = userRepository;
+        this.userRevocationService = userRevocationService;
     }
 
     public void delete(Long id) {
         this.userRepository.deleteById(id);
+        // les jetons encore valides de cet utilisateur sont refusés dès maintenant
+        this.userRevocationService.revoke(id);
     }
 
+    @Transactional(readOnly = true)
     public User findById(Long id) {
         return this.userRepository.findById(id).orElse(null);
     }
+
+    // une seule requête (IN) pour tous les identifiants ; les identifiants inconnus sont simplement absents
+    @Transactional(readOnly = true)
+    public List<User> findAllById(Collection<Long> ids) {
+        return this.userRepository.findAllById(ids);
+    }
 }
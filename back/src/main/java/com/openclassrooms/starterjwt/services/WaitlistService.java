@@ -0,0 +1,107 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.dto.WaitlistPositionDto;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.models.Waitlist;
+import com.openclassrooms.starterjwt.repository.ParticipationRepository;
+import com.openclassrooms.starterjwt.repository.ParticipationRepository.ParticipationState;
+import com.openclassrooms.starterjwt.repository.WaitlistRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * File d'attente (FIFO) des sessions complètes.
+ */
+@Service
+public class WaitlistService {
+    private final WaitlistRepository waitlistRepository;
+
+    private final ParticipationRepository participationRepository;
+
+    public WaitlistService(WaitlistRepository waitlistRepository, ParticipationRepository participationRepository) {
+        this.waitlistRepository = waitlistRepository;
+        this.participationRepository = participationRepository;
+    }
+
+    /**
+     * À appeler sous le verrou de la session ({@link SeatReservationService#joinWaitlist}) : sinon une place libérée
+     * entre la vérification et l'ajout en file laisserait l'utilisateur en attente devant une place libre.
+     */
+    @Transactional
+    public WaitlistPositionDto join(Long sessionId, Long userId) {
+        ParticipationState state = this.participationRepository.findState(sessionId, userId);
+        if (!state.isSessionFound() || !state.isUserFound()) {
+            throw new NotFoundException();
+        }
+
+        // déjà inscrit, déjà en attente, ou place encore disponible : pas de file d'attente
+        if (state.isParticipating()
+                || this.waitlistRepository.findBySessionIdAndUserId(sessionId, userId).isPresent()
+                || this.participationRepository.hasSeatAvailable(sessionId)) {
+            throw new BadRequestException();
+        }
+
+        Waitlist entry;
+        try {
+            entry = this.waitlistRepository.saveAndFlush(Waitlist.builder().sessionId(sessionId).userId(userId).build());
+        } catch (DataIntegrityViolationException e) {
+            // demande concurrente du même utilisateur (index unique session/utilisateur)
+            throw new BadRequestException();
+        }
+
+        return positionOf(entry);
+    }
+
+    @Transactional
+    public void leave(Long sessionId, Long userId) {
+        if (this.waitlistRepository.deleteBySessionIdAndUserId(sessionId, userId) == 0) {
+            throw new NotFoundException();
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public WaitlistPositionDto getPosition(Long sessionId, Long userId) {
+        Waitlist entry = this.waitlistRepository.findBySessionIdAndUserId(sessionId, userId)
+                .orElseThrow(NotFoundException::new);
+
+        return positionOf(entry);
+    }
+
+    /**
+     * Inscrit la tête de file sur la place qui vient d'être libérée, avec le même contrôle de capacité qu'une
+     * inscription directe : si la session reste complète (capacité abaissée entre-temps), l'entrée reste en file.
+     * Doit être appelée dans la transaction de la désinscription ; ne relit pas la liste des participants.
+     *
+     * @return l'utilisateur promu, vide si la file est vide ou s'il n'y a pas de place
+     */
+    public Optional<Long> promoteHead(Long sessionId) {
+        Optional<Waitlist> head = this.waitlistRepository.findFirstBySessionIdOrderByIdAsc(sessionId);
+        while (head.isPresent()) {
+            Waitlist entry = head.get();
+            if (this.participationRepository.insertIfSeatAvailable(sessionId, entry.getUserId()) > 0) {
+                this.waitlistRepository.delete(entry);
+                return Optional.of(entry.getUserId());
+            }
+            if (!this.participationRepository.hasSeatAvailable(sessionId)) {
+                return Optional.empty();
+            }
+            // entrée obsolète (déjà inscrit entre-temps) : la place revient au suivant
+            this.waitlistRepository.delete(entry);
+            head = this.waitlistRepository.findFirstBySessionIdOrderByIdAsc(sessionId);
+        }
+        return Optional.empty();
+    }
+
+    public void clear(Long sessionId) {
+        this.waitlistRepository.deleteBySessionId(sessionId);
+    }
+
+    private WaitlistPositionDto positionOf(Waitlist entry) {
+        long position = this.waitlistRepository.countBySessionIdAndIdLessThanEqual(entry.getSessionId(), entry.getId());
+        return new WaitlistPositionDto(entry.getSessionId(), entry.getUserId(), position);
+    }
+}
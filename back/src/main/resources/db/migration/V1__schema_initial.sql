@@ -1,9 +1,5 @@
-DROP TABLE IF EXISTS `PARTICIPATE` CASCADE;
-DROP TABLE IF EXISTS `USERS` CASCADE;
-DROP TABLE IF EXISTS `SESSIONS` CASCADE;
-DROP TABLE IF EXISTS `TEACHERS` CASCADE;
-
-
+-- Schéma de l'ancien script ressources/sql/script.sql, à l'identique : une base créée par ce script est marquée
+-- en V2 (spring.flyway.baseline-version) et reçoit les migrations suivantes
 CREATE TABLE `TEACHERS` (
   `id` INT PRIMARY KEY AUTO_INCREMENT,
   `last_name` VARCHAR(40),
@@ -34,7 +30,7 @@ CREATE TABLE `USERS` (
 );
 
 CREATE TABLE `PARTICIPATE` (
-  `user_id` INT, 
+  `user_id` INT,
   `session_id` INT
 );
 
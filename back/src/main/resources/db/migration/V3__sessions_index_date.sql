@@ -0,0 +1,2 @@
+-- Listing paginé des sessions dans l'ordre (date, id)
+CREATE INDEX `idx_sessions_date_id` ON `SESSIONS` (`date`, `id`);
@@ -0,0 +1,2 @@
+-- Nombre maximum de participants d'une session ; null pour une session sans limite (sessions existantes comprises)
+ALTER TABLE `SESSIONS` ADD COLUMN `capacity` INT;
@@ -0,0 +1,14 @@
+-- File d'attente des sessions complètes : ordre d'arrivée par id, un utilisateur au plus une fois par session
+CREATE TABLE `WAITLIST` (
+  `id` INT PRIMARY KEY AUTO_INCREMENT,
+  `session_id` INT NOT NULL,
+  `user_id` INT NOT NULL,
+  `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+ALTER TABLE `WAITLIST` ADD FOREIGN KEY (`session_id`) REFERENCES `SESSIONS` (`id`);
+ALTER TABLE `WAITLIST` ADD FOREIGN KEY (`user_id`) REFERENCES `USERS` (`id`);
+
+CREATE UNIQUE INDEX `idx_waitlist_session_user` ON `WAITLIST` (`session_id`, `user_id`);
+CREATE INDEX `idx_waitlist_session_order` ON `WAITLIST` (`session_id`, `id`);
+CREATE INDEX `idx_waitlist_user` ON `WAITLIST` (`user_id`, `session_id`);
@@ -0,0 +1,20 @@
+-- Clé primaire (session_id, user_id) : participants d'une session et test d'inscription par l'index.
+-- Sans clé jusqu'ici, la table peut contenir des doublons ou des lignes incomplètes : elle est reconstruite avec les
+-- seules participations distinctes et complètes.
+CREATE TABLE `PARTICIPATE_NOUVELLE` (
+  `user_id` INT NOT NULL,
+  `session_id` INT NOT NULL,
+  PRIMARY KEY (`session_id`, `user_id`)
+);
+
+INSERT INTO `PARTICIPATE_NOUVELLE` (`user_id`, `session_id`)
+SELECT DISTINCT `user_id`, `session_id` FROM `PARTICIPATE`
+WHERE `user_id` IS NOT NULL AND `session_id` IS NOT NULL;
+
+DROP TABLE `PARTICIPATE`;
+ALTER TABLE `PARTICIPATE_NOUVELLE` RENAME TO `PARTICIPATE`;
+
+-- index inverse : sessions d'un utilisateur ; créé avant la clé étrangère vers USERS, qu'il sert aussi
+CREATE INDEX `idx_participate_user_session` ON `PARTICIPATE` (`user_id`, `session_id`);
+ALTER TABLE `PARTICIPATE` ADD FOREIGN KEY (`user_id`) REFERENCES `USERS` (`id`);
+ALTER TABLE `PARTICIPATE` ADD FOREIGN KEY (`session_id`) REFERENCES `SESSIONS` (`id`);
@@ -0,0 +1,3 @@
+-- Sessions d'un professeur dans l'ordre de la pagination (date, id) ; sert aussi la clé étrangère vers TEACHERS.
+-- Les sessions par date sont déjà indexées par idx_sessions_date_id (V3).
+CREATE INDEX `idx_sessions_teacher_date_id` ON `SESSIONS` (`teacher_id`, `date`, `id`);
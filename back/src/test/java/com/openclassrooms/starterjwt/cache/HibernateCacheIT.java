@@ -0,0 +1,140 @@
+package com.openclassrooms.starterjwt.cache;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.services.UserService;
+import com.openclassrooms.starterjwt.utils.PersistentTestDataCreator;
+import com.openclassrooms.starterjwt.utils.SqlStatementCounter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.cache.CacheManager;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ActiveProfiles({"test", "l2cache"})
+@SpringBootTest
+@AutoConfigureMockMvc
+class HibernateCacheIT {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SqlStatementCounter sqlStatementCounter;
+
+    @Autowired
+    private PersistentTestDataCreator testDataCreator;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CacheManager hibernateCacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @WithMockUser
+    @Test
+    void findById_ShouldServeUserFromCache_AndNotReturnDeletedUser() throws Exception {
+        User user = testDataCreator.createTestUser("cacheL2", false);
+        mockMvc.perform(get("/api/user/" + user.getId()))
+                .andExpect(status().isOk());
+        double hits = secondLevelCacheRequests("users", "hit");
+        sqlStatementCounter.reset();
+
+        //entité mise en cache par la première lecture : plus aucune requête SQL
+        mockMvc.perform(get("/api/user/" + user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email").value("cacheL2@test.com"));
+        assertEquals(0, sqlStatementCounter.count(), () -> String.join("\n", sqlStatementCounter.statements()));
+        assertEquals(hits + 1, secondLevelCacheRequests("users", "hit"));
+
+        //la suppression retire l'entrée : lecture en base, sans résultat
+        userService.delete(user.getId());
+        sqlStatementCounter.reset();
+
+        mockMvc.perform(get("/api/user/" + user.getId()))
+                .andExpect(status().isNotFound());
+        assertEquals(1, sqlStatementCounter.count(), () -> String.join("\n", sqlStatementCounter.statements()));
+    }
+
+    @Test
+    void login_ShouldServeUserFromQueryCache_UntilUsersTableChanges() throws Exception {
+        login("yoga@studio.com");
+        sqlStatementCounter.reset();
+
+        login("yoga@studio.com");
+        assertEquals(0, sqlStatementCounter.count(), () -> String.join("\n", sqlStatementCounter.statements()));
+
+        //toute écriture dans USERS invalide les résultats de requête en cache
+        testDataCreator.createTestUser("connexionL2bis", false);
+        sqlStatementCounter.reset();
+
+        login("yoga@studio.com");
+        assertEquals(1, sqlStatementCounter.count(), () -> String.join("\n", sqlStatementCounter.statements()));
+    }
+
+    @Test
+    void findById_ShouldServeTeacherFromCache() {
+        Teacher teacher = testDataCreator.createTestTeacher("profL2");
+        teacherRepository.findById(teacher.getId());
+        sqlStatementCounter.reset();
+
+        assertEquals("profL2", teacherRepository.findById(teacher.getId()).orElseThrow().getLastName());
+        assertEquals(0, sqlStatementCounter.count(), () -> String.join("\n", sqlStatementCounter.statements()));
+    }
+
+    @Test
+    void regions_ShouldBeBoundedAsConfigured() {
+        @SuppressWarnings("unchecked")
+        CaffeineConfiguration<Object, Object> users = hibernateCacheManager.getCache("users")
+                .getConfiguration(CaffeineConfiguration.class);
+
+        assertEquals(10_000, users.getMaximumSize().orElseThrow());
+        assertEquals(Duration.ofMinutes(10).toNanos(), users.getExpireAfterWrite().orElseThrow());
+        assertNotNull(hibernateCacheManager.getCache(HibernateCacheConfig.UPDATE_TIMESTAMPS_REGION));
+    }
+
+    @Test
+    void toConfiguration_ShouldReject_RegionWithoutLimits() {
+        HibernateCacheConfig.RegionSettings settings = new HibernateCacheConfig.RegionSettings();
+        settings.setMaximumSize(100);
+
+        assertThrows(IllegalArgumentException.class, settings::toConfiguration);
+    }
+
+    private void login(String email) throws Exception {
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"" + email + "\",\"password\":\"test!1234\"}"))
+                .andExpect(status().isOk());
+    }
+
+    private double secondLevelCacheRequests(String region, String result) {
+        FunctionCounter counter = meterRegistry.find("hibernate.second.level.cache.requests")
+                .tags("region", region, "result", result).functionCounter();
+        assertNotNull(counter, "statistiques de la région " + region + " non publiées");
+        return counter.count();
+    }
+}
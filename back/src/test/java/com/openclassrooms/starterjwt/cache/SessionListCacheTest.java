@@ -0,0 +1,94 @@
+package com.openclassrooms.starterjwt.cache;
+
+import com.openclassrooms.starterjwt.cache.SessionListCache.SerializedResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionListCacheTest {
+    private final SessionListCache cache = new SessionListCache(Jackson2ObjectMapperBuilder.json().build(), 60_000, 1_000_000);
+
+    @Test
+    void acceptsGzip_ShouldFollowAcceptEncoding() {
+        assertTrue(SessionListCache.acceptsGzip("gzip, deflate, br"));
+        assertTrue(SessionListCache.acceptsGzip("br;q=1.0, GZIP;q=0.5"));
+        assertTrue(SessionListCache.acceptsGzip("*"));
+        //q illisible : gzip reste accepté
+        assertTrue(SessionListCache.acceptsGzip("gzip;q=abc"));
+        assertFalse(SessionListCache.acceptsGzip(null));
+        assertFalse(SessionListCache.acceptsGzip("identity"));
+        assertFalse(SessionListCache.acceptsGzip("gzip; q=0"));
+        assertFalse(SessionListCache.acceptsGzip("gzip;q=0.0, *"));
+    }
+
+    @Test
+    void get_ShouldKeepGzipVariant_OnlyWhenSmaller() {
+        SerializedResponse small = cache.get("petit", () -> List.of(1));
+        SerializedResponse large = cache.get("grand", () -> "séance ".repeat(200));
+
+        assertEquals("[1]", new String(small.getBody(), StandardCharsets.UTF_8));
+        assertNull(small.getGzipBody());
+        assertNotNull(large.getGzipBody());
+        assertTrue(large.getGzipBody().length < large.getBody().length);
+        assertEquals(large.getETag().replace("\"", ""), large.getGzipETag().replace("-gzip\"", "").replace("\"", ""));
+    }
+
+    @Test
+    void invalidate_InTransaction_ShouldAlsoSkipListsLoadedBeforeCompletion() {
+        AtomicInteger loads = new AtomicInteger();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.invalidate();
+            //liste relue avant la fin de la transaction : plus servie ensuite
+            SerializedResponse beforeCompletion = cache.get("liste", loads::incrementAndGet);
+            assertSame(beforeCompletion, cache.get("liste", loads::incrementAndGet));
+
+            TransactionSynchronizationUtils.invokeAfterCompletion(
+                    TransactionSynchronizationManager.getSynchronizations(), 0);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        cache.get("liste", loads::incrementAndGet);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_ShouldBoundCacheByBytes_NotByEntries() {
+        SessionListCache small = new SessionListCache(Jackson2ObjectMapperBuilder.json().build(), 60_000, 10_000);
+        AtomicInteger loads = new AtomicInteger();
+        //chaque liste pèse plusieurs ko (corps et gzip) : le cache n'en garde qu'une partie
+        for (int i = 0; i < 10; i++) {
+            int page = i;
+            small.get(page, () -> {
+                loads.incrementAndGet();
+                return new Random(page).ints(400).boxed().collect(Collectors.toList());
+            });
+        }
+
+        long weight = small.weightedSize();
+        assertTrue(weight > 0 && weight <= 10_000);
+        assertEquals(10, loads.get());
+    }
+
+    @Test
+    void get_ShouldPropagateSerializationFailure_WithoutCaching() {
+        assertThrows(IllegalStateException.class, () -> cache.get("illisible", Object::new));
+        assertEquals("[]", new String(cache.get("illisible", List::of).getBody(), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,55 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.openclassrooms.starterjwt.utils.SqlStatementCounter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ActiveProfiles("test")
+@SpringBootTest
+@AutoConfigureMockMvc
+class AuthControllerIT {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SqlStatementCounter sqlStatementCounter;
+
+    @Test
+    void login_ShouldRunASingleUserQuery_AndReturnAdminFlag() throws Exception {
+        sqlStatementCounter.reset();
+
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"yoga@studio.com\",\"password\":\"test!1234\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token", notNullValue()))
+                .andExpect(jsonPath("$.username", is("yoga@studio.com")))
+                .andExpect(jsonPath("$.admin", is(true)));
+
+        assertEquals(1, sqlStatementCounter.count(), () -> String.join("\n", sqlStatementCounter.statements()));
+        assertThat(sqlStatementCounter.statements().get(0), containsString("from USERS"));
+    }
+
+    @Test
+    void login_ShouldReturnUnauthorized_WhenPasswordIsWrong() throws Exception {
+        sqlStatementCounter.reset();
+
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"yoga@studio.com\",\"password\":\"mauvais\"}"))
+                .andExpect(status().isUnauthorized());
+
+        assertEquals(1, sqlStatementCounter.count(), () -> String.join("\n", sqlStatementCounter.statements()));
+    }
+}
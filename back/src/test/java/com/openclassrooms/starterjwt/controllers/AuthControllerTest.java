@@ -1,5 +1,6 @@
 package com.openclassrooms.starterjwt.controllers;
 
+import com.openclassrooms.starterjwt.exception.ServiceUnavailableException;
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.payload.request.LoginRequest;
 import com.openclassrooms.starterjwt.payload.request.SignupRequest;
@@ -14,15 +15,20 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
-import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.setup.MockMvcBuilders.standaloneSetup;
 
 class AuthControllerTest {
     @Mock
@@ -64,18 +70,14 @@ class AuthControllerTest {
         loginRequest.setEmail("admin@test.com");
         loginRequest.setPassword("test!1234");
 
-        User user = new User();
-        user.setEmail("admin@test.com");
-        user.setAdmin(true);
-
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class))).thenReturn(authentication);
         when(authentication.getPrincipal()).thenReturn(userDetails);
         when(userDetails.getUsername()).thenReturn("admin@test.com");
         when(userDetails.getId()).thenReturn(1L);
         when(userDetails.getFirstName()).thenReturn("Prenom");
         when(userDetails.getLastName()).thenReturn("Nom");
+        when(userDetails.getAdmin()).thenReturn(true);
         when(jwtUtils.generateJwtToken(authentication)).thenReturn("jwt-token");
-        when(userRepository.findByEmail("admin@test.com")).thenReturn(Optional.of(user));
 
         var response = authController.authenticateUser(loginRequest);
 
@@ -86,6 +88,7 @@ class AuthControllerTest {
         assertEquals(1L, jwtResponse.getId());
         assertEquals("admin@test.com", jwtResponse.getUsername());
         assertTrue(jwtResponse.getAdmin());
+        verifyNoInteractions(userRepository);
     }
 
     @Test
@@ -127,4 +130,19 @@ class AuthControllerTest {
         MessageResponse messageResponse = (MessageResponse) response.getBody();
         assertEquals("Error: Email is already taken!", messageResponse.getMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    void authenticateUser_ShouldReturnServiceUnavailable_WhenPasswordHashingIsSaturated() throws Exception {
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+                .thenThrow(new ServiceUnavailableException());
+
+        standaloneSetup(authController).build()
+                .perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"yoga@studio.com\",\"password\":\"test!1234\"}"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+
+        verifyNoInteractions(jwtUtils, userRepository);
+    }
+}
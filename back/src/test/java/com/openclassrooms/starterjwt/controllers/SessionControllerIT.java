@@ -5,24 +5,45 @@ import com.openclassrooms.starterjwt.dto.SessionDto;
 import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
 import com.openclassrooms.starterjwt.services.SessionService;
+import com.openclassrooms.starterjwt.services.TeacherService;
 import com.openclassrooms.starterjwt.utils.PersistentTestDataCreator;
+import com.openclassrooms.starterjwt.utils.SqlBudget;
+import com.openclassrooms.starterjwt.utils.SqlStatementCounter;
 import lombok.extern.slf4j.Slf4j;
 import org.hamcrest.Matchers;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
 
 import static org.hamcrest.Matchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -47,7 +68,58 @@ class SessionControllerIT {
     @Autowired
     private PersistentTestDataCreator testDataCreator;
 
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private SqlStatementCounter sqlStatementCounter;
+
+    @Autowired
+    private TeacherService teacherService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    //données validées par les tests d'écriture sans @Transactional, supprimées après chacun d'eux
+    private final List<Long> committedSessions = new ArrayList<>();
+
+    private final List<Long> committedUsers = new ArrayList<>();
+
+    private final List<Long> committedTeachers = new ArrayList<>();
+
+    @AfterEach
+    void deleteCommittedData() {
+        committedSessions.stream().filter(sessionRepository::existsById).forEach(sessionService::delete);
+        committedUsers.forEach(userRepository::deleteById);
+        committedTeachers.forEach(teacherRepository::deleteById);
+        if (!committedTeachers.isEmpty()) {
+            teacherService.refresh();
+        }
+    }
+
+    private Session committed(Session session) {
+        committedSessions.add(session.getId());
+        committedTeachers.add(session.getTeacher().getId());
+        return session;
+    }
+
+    private User committed(User user) {
+        committedUsers.add(user.getId());
+        return user;
+    }
+
     @Test
+    //détail lu par une requête (plan de chargement avec participants), jamais servi par le contexte de persistance du test
+    @SqlBudget(1)
     @WithMockUser
     @Transactional
     void findById_ShouldReturnSession_WhenSessionExists() throws Exception {
@@ -89,6 +161,7 @@ class SessionControllerIT {
     }
 
     @Test
+    @SqlBudget(1)
     @WithMockUser
     @Transactional
     void findAll_ShouldReturnListOfSessions() throws Exception {
@@ -97,22 +170,213 @@ class SessionControllerIT {
         createSessionViaSessionService();
 
         mockMvc.perform(get("/api/session")
+                        .param("unpaged", "true")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", Matchers.hasSize(greaterThanOrEqualTo(2))));
     }
 
     @Test
+    //page, puis identifiants des participants de la page
+    @SqlBudget(2)
+    @WithMockUser
+    @Transactional
+    void findAll_ShouldWalkPagesWithCursor_WhenFilteredByTeacher() throws Exception {
+        //3 sessions du même professeur, à des dates distinctes (dont 2 à la même date pour départager par id)
+        Teacher teacher = testDataCreator.createTestTeacher("profPagine");
+        Date date1 = new Date(1700000000000L);
+        Date date2 = new Date(1700003600000L);
+        Session first = sessionService.create(Session.builder().name("S1").description("d").teacher(teacher).date(date1).build());
+        Session second = sessionService.create(Session.builder().name("S2").description("d").teacher(teacher).date(date2).build());
+        Session third = sessionService.create(Session.builder().name("S3").description("d").teacher(teacher).date(date2).build());
+        first.setUsers(new ArrayList<>());
+        User user = testDataCreator.createTestUser("userPagine", false);
+        sessionService.participate(first.getId(), user.getId());
+        //la lecture résumé passe par JDBC : les écritures JPA doivent être flushées
+        entityManager.flush();
+
+        String body = mockMvc.perform(get("/api/session")
+                        .param("teacherId", teacher.getId().toString())
+                        .param("limit", "2")
+                        .param("participants", "true")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sessions", Matchers.hasSize(2)))
+                .andExpect(jsonPath("$.sessions[0].id", is(first.getId().intValue())))
+                .andExpect(jsonPath("$.sessions[0].teacher_id", is(teacher.getId().intValue())))
+                .andExpect(jsonPath("$.sessions[0].participantCount", is(1)))
+                .andExpect(jsonPath("$.sessions[0].users", contains(user.getId().intValue())))
+                .andExpect(jsonPath("$.sessions[1].id", is(second.getId().intValue())))
+                .andExpect(jsonPath("$.sessions[1].participantCount", is(0)))
+                .andExpect(jsonPath("$.sessions[1].users", hasSize(0)))
+                .andExpect(jsonPath("$.nextCursor", notNullValue()))
+                .andReturn().getResponse().getContentAsString();
+
+        String nextCursor = objectMapper.readTree(body).get("nextCursor").asText();
+
+        mockMvc.perform(get("/api/session")
+                        .param("teacherId", teacher.getId().toString())
+                        .param("limit", "2")
+                        .param("cursor", nextCursor)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sessions", Matchers.hasSize(1)))
+                .andExpect(jsonPath("$.sessions[0].id", is(third.getId().intValue())))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        //filtre sur la plage de dates : seule la première session est antérieure à date2
+        mockMvc.perform(get("/api/session")
+                        .param("teacherId", teacher.getId().toString())
+                        .param("to", date2.toInstant().toString())
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sessions", Matchers.hasSize(1)))
+                .andExpect(jsonPath("$.sessions[0].id", is(first.getId().intValue())))
+                .andExpect(jsonPath("$.sessions[0].participantCount", is(1)))
+                .andExpect(jsonPath("$.sessions[0].users").doesNotExist());
+    }
+
+    @Test
+    @SqlBudget(2)
     @WithMockUser
     @Transactional
+    void findAll_ShouldListEveryParticipant_WhenSessionIsLarge() throws Exception {
+        //bien au-delà de ce que tient un GROUP_CONCAT MySQL par défaut (1024 octets)
+        Teacher teacher = testDataCreator.createTestTeacher("profGrandeSession");
+        Session session = sessionService.create(Session.builder().name("Grande session").description("d")
+                .teacher(teacher).date(new Date()).build());
+        List<Object[]> participations = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            participations.add(new Object[]{session.getId(), testDataCreator.createTestUser("grandeSession" + i, false).getId()});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO PARTICIPATE (session_id, user_id) VALUES (?, ?)", participations);
+        List<Integer> expected = participations.stream()
+                .map(participation -> ((Long) participation[1]).intValue())
+                .collect(Collectors.toList());
+
+        mockMvc.perform(get("/api/session")
+                        .param("teacherId", teacher.getId().toString())
+                        .param("participants", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sessions[0].participantCount", is(250)))
+                .andExpect(jsonPath("$.sessions[0].users", contains(expected.toArray())));
+    }
+
+    @Test
+    @SqlBudget(1)
+    @WithMockUser
+    void findById_ShouldReturnNotModified_UntilAParticipationChanges() throws Exception {
+        //pas de @Transactional : la session est relue depuis le cache, comme en production
+        Session session = createSessionViaSessionService();
+        User user = testDataCreator.createTestUser("detailCache", false);
+        String url = "/api/session/" + session.getId();
+
+        String eTag = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(eTag);
+        sqlStatementCounter.reset();
+
+        //version calculée depuis la session en cache : ni requête SQL, ni corps
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
+        assertEquals(0, sqlStatementCounter.count(), () -> String.join("\n", sqlStatementCounter.statements()));
+
+        //l'inscription ne touche pas updated_at de la session, mais change sa version
+        mockMvc.perform(post(url + "/participate/" + user.getId())).andExpect(status().isOk());
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(eTag)))
+                .andExpect(jsonPath("$.users", contains(user.getId().intValue())));
+    }
+
+    @Test
+    @SqlBudget(1)
+    @WithMockUser
+    void findAll_ShouldServeCachedBytesWithETag_UntilAParticipationChanges() throws Exception {
+        //pas de @Transactional : la liste en cache n'est invalidée qu'une fois chaque écriture terminée, comme en production
+        Session session = createSessionViaSessionService();
+        User user = testDataCreator.createTestUser("listeCache", false);
+        String teacherId = session.getTeacher().getId().toString();
+
+        MvcResult first = mockMvc.perform(get("/api/session").param("teacherId", teacherId))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT_ENCODING)))
+                .andExpect(jsonPath("$.sessions[0].participantCount", is(0)))
+                .andReturn();
+        String eTag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(eTag);
+        sqlStatementCounter.reset();
+
+        //mêmes paramètres : mêmes octets servis depuis le cache, 304 sans corps pour un client à jour
+        mockMvc.perform(get("/api/session").param("teacherId", teacherId))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().bytes(first.getResponse().getContentAsByteArray()));
+        mockMvc.perform(get("/api/session").param("teacherId", teacherId).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        assertEquals(0, sqlStatementCounter.count(), () -> String.join("\n", sqlStatementCounter.statements()));
+
+        //l'inscription invalide la liste : nouveau contenu, donc nouvel ETag
+        mockMvc.perform(post("/api/session/" + session.getId() + "/participate/" + user.getId()))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/session").param("teacherId", teacherId).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(eTag)))
+                .andExpect(jsonPath("$.sessions[0].participantCount", is(1)));
+    }
+
+    @Test
+    @SqlBudget(1)
+    @WithMockUser
+    void findAll_ShouldServeGzipVariant_WhenClientAcceptsIt() throws Exception {
+        createSessionViaSessionService();
+        createSessionViaSessionService();
+
+        byte[] json = mockMvc.perform(get("/api/session").param("unpaged", "true"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        //variante compressée du même contenu, avec son propre ETag
+        byte[] gzip = mockMvc.perform(get("/api/session").param("unpaged", "true")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.ETAG, endsWith("-gzip\"")))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertArrayEquals(json, gunzip(gzip));
+
+        //gzip explicitement refusé
+        mockMvc.perform(get("/api/session").param("unpaged", "true").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, *;q=0"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(content().bytes(json));
+    }
+
+    private static byte[] gunzip(byte[] compressed) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return in.readAllBytes();
+        }
+    }
+
+    @Test
+    //professeur servi par le catalogue : le seul INSERT de la session
+    @SqlBudget(1)
+    @WithMockUser
     void create_WhenSessionDtoIsValid_ShouldReturnCreatedSession() throws Exception {
+        //pas de @Transactional : l'écriture est réellement exécutée et comptée
         SessionDto sessionDto = new SessionDto();
         sessionDto.setName("Session yoga matin");
         sessionDto.setDescription("Description session yoga matin");
         sessionDto.setTeacher_id(1L);
         sessionDto.setDate(new Date());
 
-        mockMvc.perform(post("/api/session")
+        String body = mockMvc.perform(post("/api/session")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(sessionDto))) // Convertir DTO en JSON
                 .andExpect(status().isOk())
@@ -121,10 +385,13 @@ class SessionControllerIT {
                 .andExpect(jsonPath("$.description", is("Description session yoga matin")))
                 .andExpect(jsonPath("$.teacher_id", is(1)))
                 .andExpect(jsonPath("$.createdAt", notNullValue()))
-                .andExpect(jsonPath("$.updatedAt", notNullValue()));
+                .andExpect(jsonPath("$.updatedAt", notNullValue()))
+                .andReturn().getResponse().getContentAsString();
+        committedSessions.add(objectMapper.readTree(body).get("id").asLong());
     }
 
     @Test
+    @SqlBudget(0)
     @WithMockUser
     void create_WhenSessionDtoIsInvalid_ShouldReturnError() throws Exception {
         SessionDto sessionDto = new SessionDto();
@@ -145,11 +412,13 @@ class SessionControllerIT {
     }
 
     @Test
+    //session et participants relus par une requête avant la fusion, puis la mise à jour
+    @SqlBudget(2)
     @WithMockUser
-    @Transactional
     void update_WhenSessionDtoIsValid_ShouldReturnUpdatedSession() throws Exception {
-        // Créer une session initiale via le service
-        Session session = createSessionViaSessionService();
+        //pas de @Transactional : la mise à jour est réellement exécutée et comptée
+        Session session = committed(createSessionViaSessionService());
+        teacherService.refresh(); // catalogue à jour, comme en régime établi
 
         //DTO pour mise à jour
         SessionDto updatedDto = new SessionDto();
@@ -172,6 +441,7 @@ class SessionControllerIT {
     }
 
     @Test
+    @SqlBudget(0)
     @WithMockUser
     @Transactional
     void update_WhenSessionDtoIsInvalid_ShouldReturnBadRequest() throws Exception {
@@ -192,36 +462,71 @@ class SessionControllerIT {
     }
 
     @Test
+    //session et professeur, puis file d'attente, participants et session supprimés sans être relus
+    @SqlBudget(4)
     @WithMockUser
-    @Transactional
     void delete_ShouldReturnOk_WhenSessionExists() throws Exception {
-        // Créer une session à supprimer
-        Session session = createSessionViaSessionService();
+        //pas de @Transactional : la suppression est réellement exécutée et comptée
+        Session session = committed(createSessionViaSessionService());
 
         mockMvc.perform(delete("/api/session/" + session.getId())
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk());
+
+        assertFalse(sessionRepository.existsById(session.getId()));
     }
 
     @Test
+    @SqlBudget(4)
     @WithMockUser
-    @Transactional
     void delete_ShouldReturnError_EvenIfSessionExistsWithParticipant() throws Exception {
-        // Créer une session à supprimer
-        Session session = createSessionViaSessionService();
-        session.setUsers(new ArrayList<>());
+        //pas de @Transactional : la suppression est réellement exécutée et comptée
+        Session session = committed(createSessionViaSessionService());
 
         //inscrire un user sur cette session
-        User user = testDataCreator.createTestUser("user", false);
+        User user = committed(testDataCreator.createTestUser("user", false));
         sessionService.participate(session.getId(), user.getId());
 
         //supprimer cette session avec un participant est possible
         mockMvc.perform(delete("/api/session/" + session.getId())
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk());
+
+        assertFalse(sessionRepository.existsById(session.getId()));
+    }
+
+    @Test
+    @SqlBudget(4)
+    @WithMockUser
+    void delete_ShouldNotLoadParticipants_WhateverTheirNumber() throws Exception {
+        //pas de @Transactional : la suppression relit réellement la session en base
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            users.add(testDataCreator.createTestUser("supprime" + i, false));
+        }
+        Session session = sessionService.create(Session.builder()
+                .name("Session supprimée")
+                .description("Participants non chargés")
+                .teacher(testDataCreator.createTestTeacher("profSuppression"))
+                .date(new Date())
+                .users(users)
+                .build());
+        sqlStatementCounter.reset();
+
+        mockMvc.perform(delete("/api/session/" + session.getId()))
+                .andExpect(status().isOk());
+
+        // session et professeur, puis les suppressions : aucune lecture des participants
+        List<String> userReads = sqlStatementCounter.statements().stream()
+                .filter(sql -> sql.contains("USERS"))
+                .collect(Collectors.toList());
+        assertEquals(0, userReads.size(), () -> String.join("\n", userReads));
+        assertEquals(0, sessionService.findAllSummaries(false).stream()
+                .filter(summary -> summary.getId().equals(session.getId())).count());
     }
 
     @Test
+    @SqlBudget(1)
     @WithMockUser
     void delete_ShouldReturnNotFound_WhenSessionNotExists() throws Exception {
 
@@ -231,6 +536,7 @@ class SessionControllerIT {
     }
 
     @Test
+    @SqlBudget(1)
     @WithMockUser
    @Transactional //soutenance si je retire le rollback pour commit, on voit erreur par rapport au User non flushé
     void participate_ShouldReturnOk_WhenParticipationIsSuccessful() throws Exception {
@@ -256,6 +562,7 @@ class SessionControllerIT {
     }
 
     @Test
+    @SqlBudget(2)
     @WithMockUser
     @Transactional
     //soutenance : pas d'intérêt car déja fait dans TU (plus rapidement)
@@ -287,6 +594,7 @@ class SessionControllerIT {
 //    }
 
     @Test
+    @SqlBudget(2)
     @WithMockUser
     @Transactional
     void noLongerParticipate_ShouldReturnOk_WhenRemoveSuccessful() throws Exception {
@@ -305,6 +613,247 @@ class SessionControllerIT {
     }
 
     @Test
+    @SqlBudget(1)
+    @WithMockUser
+    @Transactional
+    void participate_ShouldRunASingleConditionalInsert_WhateverTheClassSize() throws Exception {
+        Session session = createSessionViaSessionService();
+        for (int i = 0; i < 5; i++) {
+            sessionService.participate(session.getId(), testDataCreator.createTestUser("inscrit" + i, false).getId());
+        }
+        User user = testDataCreator.createTestUser("nouvelInscrit", false);
+        entityManager.flush();
+        sqlStatementCounter.reset();
+
+        mockMvc.perform(post("/api/session/" + session.getId() + "/participate/" + user.getId())
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        assertEquals(1, sqlStatementCounter.count(), () -> String.join("\n", sqlStatementCounter.statements()));
+        assertThat(sqlStatementCounter.statements().get(0), startsWith("INSERT INTO PARTICIPATE"));
+    }
+
+    @Test
+    @SqlBudget(2)
+    @WithMockUser
+    @Transactional
+    void participate_ShouldReturnConflict_WhenSessionIsFull() throws Exception {
+        Session session = sessionService.create(Session.builder()
+                .name("Session complète")
+                .description("Une seule place")
+                .teacher(testDataCreator.createTestTeacher("profComplet"))
+                .date(new Date())
+                .capacity(1)
+                .build());
+        sessionService.participate(session.getId(), testDataCreator.createTestUser("premier", false).getId());
+        User user = testDataCreator.createTestUser("second", false);
+
+        mockMvc.perform(post("/api/session/" + session.getId() + "/participate/" + user.getId())
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    @SqlBudget(2)
+    @WithMockUser
+    @Transactional
+    void participate_ShouldReturnBadRequest_WhenUserAlreadyParticipates() throws Exception {
+        Session session = createSessionViaSessionService();
+        User user = testDataCreator.createTestUser("dejaInscrit", false);
+        sessionService.participate(session.getId(), user.getId());
+
+        mockMvc.perform(post("/api/session/" + session.getId() + "/participate/" + user.getId())
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @SqlBudget(2)
+    @WithMockUser
+    @Transactional
+    void noLongerParticipate_ShouldRunASingleDelete_WhenUserParticipates() throws Exception {
+        Session session = createSessionViaSessionService();
+        User user = testDataCreator.createTestUser("desinscrit", false);
+        sessionService.participate(session.getId(), user.getId());
+        sessionService.participate(session.getId(), testDataCreator.createTestUser("resteInscrit", false).getId());
+        entityManager.flush();
+        sqlStatementCounter.reset();
+
+        mockMvc.perform(delete("/api/session/" + session.getId() + "/participate/" + user.getId())
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        // les autres inscriptions ne sont ni supprimées ni réinsérées : seule la tête de file d'attente est lue
+        assertEquals(2, sqlStatementCounter.count(), () -> String.join("\n", sqlStatementCounter.statements()));
+        assertThat(sqlStatementCounter.statements().get(0), startsWith("DELETE FROM PARTICIPATE"));
+    }
+
+    @Test
+    @SqlBudget(5)
+    @WithMockUser
+    @Transactional
+    void noLongerParticipate_ShouldPromoteWaitlistHead_WhenSessionIsFull() throws Exception {
+        Session session = sessionService.create(Session.builder()
+                .name("Session avec attente")
+                .description("Une seule place")
+                .teacher(testDataCreator.createTestTeacher("profAttente"))
+                .date(new Date())
+                .capacity(1)
+                .build());
+        User inscrit = testDataCreator.createTestUser("inscritAttente", false);
+        User premier = testDataCreator.createTestUser("premierAttente", false);
+        User second = testDataCreator.createTestUser("secondAttente", false);
+        sessionService.participate(session.getId(), inscrit.getId());
+        entityManager.flush();
+
+        String waitlist = "/api/session/" + session.getId() + "/waitlist/";
+        mockMvc.perform(post(waitlist + premier.getId())).andExpect(status().isOk())
+                .andExpect(jsonPath("$.position").value(1));
+        mockMvc.perform(post(waitlist + second.getId())).andExpect(status().isOk())
+                .andExpect(jsonPath("$.position").value(2));
+        // déjà en attente
+        mockMvc.perform(post(waitlist + second.getId())).andExpect(status().isBadRequest());
+
+        mockMvc.perform(delete("/api/session/" + session.getId() + "/participate/" + inscrit.getId()))
+                .andExpect(status().isOk());
+
+        // la tête de file occupe la place libérée, le suivant avance
+        mockMvc.perform(get(waitlist + premier.getId())).andExpect(status().isNotFound());
+        mockMvc.perform(get(waitlist + second.getId())).andExpect(status().isOk())
+                .andExpect(jsonPath("$.position").value(1));
+        mockMvc.perform(post("/api/session/" + session.getId() + "/participate/" + premier.getId()))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(delete(waitlist + second.getId())).andExpect(status().isOk());
+        mockMvc.perform(delete(waitlist + second.getId())).andExpect(status().isNotFound());
+    }
+
+    @Test
+    @SqlBudget(3)
+    @WithMockUser
+    @Transactional
+    void joinWaitlist_ShouldReturnBadRequest_WhenSeatIsAvailable() throws Exception {
+        Session session = createSessionViaSessionService();
+        User user = testDataCreator.createTestUser("placeLibre", false);
+
+        mockMvc.perform(post("/api/session/" + session.getId() + "/waitlist/" + user.getId()))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/session/99999999/waitlist/" + user.getId()))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @SqlBudget(2)
+    @WithMockUser
+    @Transactional
+    void noLongerParticipate_ShouldReturnNotFoundOrBadRequest_WhenNothingToDelete() throws Exception {
+        Session session = createSessionViaSessionService();
+        User user = testDataCreator.createTestUser("jamaisInscrit", false);
+
+        mockMvc.perform(delete("/api/session/" + session.getId() + "/participate/" + user.getId())
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(delete("/api/session/99999999/participate/" + user.getId())
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @SqlBudget(4)
+    @WithMockUser
+    void findById_ShouldServeRepeatedReadsFromCache_AndReflectEachWrite() throws Exception {
+        //pas de @Transactional : chaque requête a son propre contexte de persistance, comme en production
+        Session session = createSessionViaSessionService();
+        User user = testDataCreator.createTestUser("lecteurCache", false);
+        String url = "/api/session/" + session.getId();
+
+        mockMvc.perform(get(url)).andExpect(status().isOk()).andExpect(jsonPath("$.users", hasSize(0)));
+        sqlStatementCounter.reset();
+        mockMvc.perform(get(url)).andExpect(status().isOk());
+        assertEquals(0, sqlStatementCounter.count(), () -> String.join("\n", sqlStatementCounter.statements()));
+
+        // relecture immédiate par l'auteur de chaque écriture
+        mockMvc.perform(post(url + "/participate/" + user.getId())).andExpect(status().isOk());
+        mockMvc.perform(get(url)).andExpect(jsonPath("$.users", contains(user.getId().intValue())));
+
+        mockMvc.perform(delete(url + "/participate/" + user.getId())).andExpect(status().isOk());
+        mockMvc.perform(get(url)).andExpect(jsonPath("$.users", hasSize(0)));
+
+        SessionDto update = new SessionDto();
+        update.setName("Session renommée");
+        update.setDescription(session.getDescription());
+        update.setTeacher_id(session.getTeacher().getId());
+        update.setDate(new Date());
+        mockMvc.perform(put(url)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(update)))
+                .andExpect(status().isOk());
+        mockMvc.perform(get(url)).andExpect(jsonPath("$.name", is("Session renommée")));
+
+        mockMvc.perform(delete(url)).andExpect(status().isOk());
+        mockMvc.perform(get(url)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    //participants, session relue, mise à jour, puis les 60 inscriptions en un lot
+    @SqlBudget(4)
+    @WithMockUser
+    void update_ShouldResolveAllParticipantsWithASingleQuery_WhateverTheirNumber() throws Exception {
+        //pas de @Transactional : la mise à jour est réellement exécutée et comptée
+        Session session = committed(createSessionViaSessionService());
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            userIds.add(committed(testDataCreator.createTestUser("participantLot" + i, false)).getId());
+        }
+
+        SessionDto sessionDto = new SessionDto();
+        sessionDto.setName("Session très suivie");
+        sessionDto.setDescription(session.getDescription());
+        sessionDto.setTeacher_id(session.getTeacher().getId());
+        sessionDto.setDate(new Date());
+        sessionDto.setUsers(userIds);
+        teacherService.refresh(); // catalogue à jour, comme en régime établi
+        sqlStatementCounter.reset();
+
+        mockMvc.perform(put("/api/session/" + session.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(sessionDto)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users", hasSize(60)));
+
+        // une requête pour les 60 participants, aucune pour le professeur (catalogue en mémoire)
+        List<String> lookups = sqlStatementCounter.statements().stream()
+                .filter(sql -> sql.matches("(?is)select .* from (USERS|TEACHERS) .*"))
+                .collect(Collectors.toList());
+        assertEquals(1, lookups.size(), () -> String.join("\n", lookups));
+        assertThat(lookups.get(0), containsString(" in ("));
+    }
+
+    @Test
+    @SqlBudget(1)
+    @WithMockUser
+    @Transactional
+    void create_ShouldReturnBadRequest_WhenParticipantsAreUnknown() throws Exception {
+        User user = testDataCreator.createTestUser("participantConnu", false);
+
+        SessionDto sessionDto = new SessionDto();
+        sessionDto.setName("Session avec inconnus");
+        sessionDto.setDescription("Description");
+        sessionDto.setTeacher_id(1L);
+        sessionDto.setDate(new Date());
+        sessionDto.setUsers(Arrays.asList(user.getId(), 99999998L, 99999999L));
+
+        mockMvc.perform(post("/api/session")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(sessionDto)))
+                .andExpect(status().isBadRequest())
+                .andExpect(result -> assertEquals("Utilisateurs inconnus : [99999998, 99999999]",
+                        result.getResolvedException().getMessage()));
+    }
+
+    @Test
+    @SqlBudget(0)
     @WithMockUser
     //mentor : pas d'intérêt puisque TU plus rapide ?
     void findById_ShouldReturnBadRequest_WhenIdIsInvalid() throws Exception {
@@ -1,15 +1,24 @@
 package com.openclassrooms.starterjwt.controllers;
 
+import com.openclassrooms.starterjwt.cache.SessionListCache;
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.dto.SessionSummaryDto;
+import com.openclassrooms.starterjwt.dto.WaitlistPositionDto;
 import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.payload.request.SessionCursor;
 import com.openclassrooms.starterjwt.services.SessionService;
+import com.openclassrooms.starterjwt.services.WaitlistService;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 
 import java.util.Arrays;
 import java.util.Date;
@@ -30,6 +39,13 @@ public class SessionControllerTest {
     @Mock
     private SessionMapper sessionMapper;
 
+    @Mock
+    private WaitlistService waitlistService;
+
+    // vrai cache : les réponses de liste sont sérialisées par lui
+    @Spy
+    private SessionListCache sessionListCache = new SessionListCache(Jackson2ObjectMapperBuilder.json().build(), 60_000, 1_000_000);
+
     @InjectMocks
     private SessionController sessionController;
 
@@ -80,34 +96,137 @@ public class SessionControllerTest {
     }
 
     @Test
-    void findAll_ShouldReturnListOfSessions() throws Exception {
+    void findAll_ShouldReturnAllSummaries_WhenUnpagedIsRequested() throws Exception {
         // GIVEN
-        Session session1 = new Session();
-        session1.setId(1L);
-        Session session2 = new Session();
-        session2.setId(2L);
+        SessionSummaryDto summary1 = new SessionSummaryDto();
+        summary1.setId(1L);
+        SessionSummaryDto summary2 = new SessionSummaryDto();
+        summary2.setId(2L);
+        summary2.setParticipantCount(3);
+
+        when(sessionService.findAllSummaries(false)).thenReturn(Arrays.asList(summary1, summary2));
 
-        List<Session> sessions = Arrays.asList(session1, session2);
+        // WHEN + THEN
+        mockMvc.perform(get("/api/session")
+                        .param("unpaged", "true")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[1].id").value(2))
+                .andExpect(jsonPath("$[1].participantCount").value(3))
+                .andExpect(jsonPath("$[1].users").doesNotExist());
+
+        verify(sessionService, times(1)).findAllSummaries(false);
+        verifyNoInteractions(sessionMapper);
+    }
+
+    @Test
+    void findAll_ShouldReturnFirstPageWithNextCursor_WhenMoreSessionsExist() throws Exception {
+        // GIVEN
+        Date date = new Date(1700000000000L);
+        SessionSummaryDto summary1 = new SessionSummaryDto();
+        summary1.setId(1L);
+        summary1.setDate(date);
+        SessionSummaryDto summary2 = new SessionSummaryDto();
+        summary2.setId(2L);
+        summary2.setDate(date);
+        summary2.setUsers(List.of(10L, 11L));
+
+        when(sessionService.findSummaryPage(isNull(), eq(2), isNull(), isNull(), isNull(), eq(true)))
+                .thenReturn(new SliceImpl<>(Arrays.asList(summary1, summary2), PageRequest.of(0, 2), true));
+
+        // WHEN + THEN : le curseur suivant pointe sur la dernière session de la page
+        mockMvc.perform(get("/api/session")
+                        .param("limit", "2")
+                        .param("participants", "true")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sessions[0].id").value(1))
+                .andExpect(jsonPath("$.sessions[1].id").value(2))
+                .andExpect(jsonPath("$.sessions[1].users[1]").value(11))
+                .andExpect(jsonPath("$.limit").value(2))
+                .andExpect(jsonPath("$.nextCursor").value(new SessionCursor(date, 2L).encode()));
 
-        SessionDto sessionDto1 = new SessionDto();
-        sessionDto1.setId(1L);
-        SessionDto sessionDto2 = new SessionDto();
-        sessionDto2.setId(2L);
+        verify(sessionService, never()).findAllSummaries(anyBoolean());
+    }
 
-        List<SessionDto> sessionDtos = Arrays.asList(sessionDto1, sessionDto2);
+    @Test
+    void findAll_ShouldReturnLastPageWithoutCursor_WhenCursorAndFiltersAreProvided() throws Exception {
+        // GIVEN
+        SessionCursor cursor = new SessionCursor(new Date(1700000000000L), 5L);
+        SessionSummaryDto summary = new SessionSummaryDto();
+        summary.setId(6L);
 
-        when(sessionService.findAll()).thenReturn(sessions);
-        when(sessionMapper.toDto(sessions)).thenReturn(sessionDtos);
+        when(sessionService.findSummaryPage(any(SessionCursor.class), eq(SessionService.DEFAULT_PAGE_SIZE), any(Date.class), any(Date.class), eq(1L), eq(false)))
+                .thenReturn(new SliceImpl<>(List.of(summary), PageRequest.of(0, 20), false));
 
         // WHEN + THEN
         mockMvc.perform(get("/api/session")
+                        .param("cursor", cursor.encode())
+                        .param("from", "2023-11-01T00:00:00.000Z")
+                        .param("to", "2023-12-01T00:00:00Z")
+                        .param("teacherId", "1")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].id").value(1))
-                .andExpect(jsonPath("$[1].id").value(2));
+                .andExpect(jsonPath("$.sessions.length()").value(1))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        verify(sessionService, times(1)).findSummaryPage(argThat(c -> c.getId().equals(5L)
+                && c.getDate().getTime() == 1700000000000L), eq(SessionService.DEFAULT_PAGE_SIZE), any(Date.class), any(Date.class), eq(1L), eq(false));
+    }
+
+    @Test
+    void findAll_ShouldShareCacheEntry_ForEquivalentParameters() throws Exception {
+        // GIVEN
+        SessionCursor cursor = new SessionCursor(new Date(1700000000000L), 5L);
+        when(sessionService.findSummaryPage(any(SessionCursor.class), eq(SessionService.DEFAULT_PAGE_SIZE), isNull(), isNull(), isNull(), eq(false)))
+                .thenReturn(new SliceImpl<>(List.of(), PageRequest.of(0, 20), false));
+
+        // WHEN + THEN : limite absente ou explicite, même page ; paramètres de pagination ignorés par la liste complète
+        mockMvc.perform(get("/api/session").param("cursor", cursor.encode())).andExpect(status().isOk());
+        mockMvc.perform(get("/api/session").param("cursor", cursor.encode())
+                .param("limit", String.valueOf(SessionService.DEFAULT_PAGE_SIZE))).andExpect(status().isOk());
+        verify(sessionService, times(1)).findSummaryPage(any(SessionCursor.class), eq(SessionService.DEFAULT_PAGE_SIZE),
+                isNull(), isNull(), isNull(), eq(false));
+
+        when(sessionService.findAllSummaries(false)).thenReturn(List.of());
+        mockMvc.perform(get("/api/session").param("unpaged", "true")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/session").param("unpaged", "true").param("limit", "7").param("cursor", cursor.encode()))
+                .andExpect(status().isOk());
+        verify(sessionService, times(1)).findAllSummaries(false);
+    }
+
+    @Test
+    void findAll_ShouldSerializeOnce_ForRepeatedParameters() throws Exception {
+        // GIVEN
+        SessionSummaryDto summary = new SessionSummaryDto();
+        summary.setId(1L);
+
+        when(sessionService.findAllSummaries(true)).thenReturn(List.of(summary));
+
+        // WHEN + THEN : la seconde requête est servie par le cache, l'invalidation provoque une relecture
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/api/session").param("unpaged", "true").param("participants", "true"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().exists("ETag"))
+                    .andExpect(jsonPath("$[0].id").value(1));
+        }
+        verify(sessionService, times(1)).findAllSummaries(true);
+
+        sessionListCache.invalidate();
+        mockMvc.perform(get("/api/session").param("unpaged", "true").param("participants", "true"))
+                .andExpect(status().isOk());
+        verify(sessionService, times(2)).findAllSummaries(true);
+    }
 
-        verify(sessionService, times(1)).findAll();
-        verify(sessionMapper, times(1)).toDto(sessions);
+    @Test
+    void findAll_ShouldReturnBadRequest_WhenCursorIsInvalid() throws Exception {
+        mockMvc.perform(get("/api/session")
+                        .param("cursor", "pas-un-curseur")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(sessionService);
     }
 
     @Test
@@ -249,7 +368,6 @@ public class SessionControllerTest {
         Long sessionId = 1L;
 
         doNothing().when(sessionService).delete(sessionId);
-        when(sessionService.getById(sessionId)).thenReturn(new Session());
 
         // WHEN + THEN
         mockMvc.perform(delete("/api/session/{id}", sessionId)
@@ -344,4 +462,42 @@ public class SessionControllerTest {
         // Vérification que le service n'est jamais appelé
         verifyNoInteractions(sessionService);
     }
+
+    @Test
+    void joinWaitlist_ShouldReturnPosition() throws Exception {
+        when(sessionService.joinWaitlist(1L, 10L)).thenReturn(new WaitlistPositionDto(1L, 10L, 2L));
+
+        mockMvc.perform(post("/api/session/{id}/waitlist/{userId}", 1L, 10L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.position").value(2));
+
+        verify(sessionService, times(1)).joinWaitlist(1L, 10L);
+    }
+
+    @Test
+    void waitlistPosition_ShouldReturnPosition() throws Exception {
+        when(waitlistService.getPosition(1L, 10L)).thenReturn(new WaitlistPositionDto(1L, 10L, 1L));
+
+        mockMvc.perform(get("/api/session/{id}/waitlist/{userId}", 1L, 10L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.userId").value(10))
+                .andExpect(jsonPath("$.position").value(1));
+    }
+
+    @Test
+    void leaveWaitlist_ShouldReturnOk() throws Exception {
+        mockMvc.perform(delete("/api/session/{id}/waitlist/{userId}", 1L, 10L))
+                .andExpect(status().isOk());
+
+        verify(waitlistService, times(1)).leave(1L, 10L);
+    }
+
+    @Test
+    void waitlistEndpoints_ShouldReturnBadRequest_WhenIdsAreInvalid() throws Exception {
+        mockMvc.perform(post("/api/session/{id}/waitlist/{userId}", "A", "A")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/session/{id}/waitlist/{userId}", "A", "A")).andExpect(status().isBadRequest());
+        mockMvc.perform(delete("/api/session/{id}/waitlist/{userId}", "A", "A")).andExpect(status().isBadRequest());
+
+        verifyNoInteractions(waitlistService);
+    }
 }
@@ -4,12 +4,14 @@ import com.openclassrooms.starterjwt.dto.TeacherDto;
 import com.openclassrooms.starterjwt.mapper.TeacherMapper;
 import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.services.TeacherService;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
@@ -37,6 +39,11 @@ class TeacherControllerIT {
     @MockBean
     private TeacherMapper teacherMapper;
 
+    @BeforeEach
+    void setUp() {
+        Mockito.when(teacherService.version()).thenReturn("2-1a2b3c");
+    }
+
     @WithMockUser
     @Test
     void whenGetTeacherById_withValidId_shouldReturnTeacherDto() throws Exception {
@@ -98,4 +105,41 @@ class TeacherControllerIT {
                 .andExpect(jsonPath("$[1].id").value(2))
                 .andExpect(jsonPath("$[1].lastName").value("Nom2"));
     }
-}
\ No newline at end of file
+
+    @WithMockUser
+    @Test
+    void whenGetAllTeachers_withCurrentVersion_shouldReturnNotModified() throws Exception {
+        Mockito.when(teacherService.findAll()).thenReturn(List.of());
+
+        mockMvc.perform(get("/api/teacher")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2-1a2b3c\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"));
+
+        mockMvc.perform(get("/api/teacher")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"2-1a2b3c\"")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        mockMvc.perform(get("/api/teacher")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"1-0f0f0f\"")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        //le 304 est décidé avant toute lecture du catalogue
+        Mockito.verify(teacherService, Mockito.times(2)).findAll();
+    }
+
+    @WithMockUser
+    @Test
+    void whenGetTeacherById_withCurrentVersion_shouldReturnNotModified() throws Exception {
+        Teacher teacher = new Teacher(1L, "Nom", "Prenom", LocalDateTime.now(), LocalDateTime.now());
+        Mockito.when(teacherService.findById(1L)).thenReturn(teacher);
+
+        mockMvc.perform(get("/api/teacher/1")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"2-1a2b3c\"")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified());
+    }
+}
@@ -0,0 +1,66 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.services.TeacherService;
+import com.openclassrooms.starterjwt.utils.SqlBudget;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Budgets SQL de /api/teacher avec le catalogue réel (TeacherControllerIT le simule), en régime établi : catalogue
+ * déjà chargé, aucune requête SQL pour un professeur connu.
+ */
+@ActiveProfiles("test")
+@SpringBootTest
+@AutoConfigureMockMvc
+class TeacherControllerSqlBudgetIT {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TeacherService teacherService;
+
+    @BeforeEach
+    void loadCatalog() {
+        teacherService.refresh();
+    }
+
+    @Test
+    @SqlBudget(0)
+    @WithMockUser
+    void findAll_ShouldBeServedFromCatalog() throws Exception {
+        mockMvc.perform(get("/api/teacher"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(teacherService.findAll().size())));
+    }
+
+    @Test
+    @SqlBudget(0)
+    @WithMockUser
+    void findById_ShouldBeServedFromCatalog() throws Exception {
+        Teacher teacher = teacherService.findAll().get(0);
+
+        mockMvc.perform(get("/api/teacher/" + teacher.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.lastName", is(teacher.getLastName())));
+    }
+
+    @Test
+    @SqlBudget(1)
+    @WithMockUser
+    void findById_ShouldLookUpTheTable_OnlyForATeacherMissingFromCatalog() throws Exception {
+        mockMvc.perform(get("/api/teacher/0"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -8,6 +8,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
@@ -70,6 +71,36 @@ public class UserControllerIT {
         verify(userService).findById(1L);
     }
 
+    @Test
+    @WithMockUser
+    void findById_ShouldReturnNotModified_UntilUserChanges() throws Exception {
+        User user = User.builder()
+                .id(2L)
+                .email("etag@test.com")
+                .lastName("Nom")
+                .firstName("Prénom")
+                .password("test!1234")
+                .updatedAt(LocalDateTime.of(2025, 1, 1, 10, 0))
+                .build();
+        when(userService.findById(2L)).thenReturn(user);
+
+        String eTag = mockMvc.perform(get("/api/user/2"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/user/2").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(MockMvcResultMatchers.content().string(""));
+
+        //même seconde de modification, mais contenu différent : nouvelle version
+        user.setLastName("Renommé");
+        mockMvc.perform(get("/api/user/2").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.lastName").value("Renommé"));
+    }
+
     @Test
     @WithMockUser(username = "user@test.com")//un user donné a la possibilité de se supprimer
     void delete_ShouldReturnOk_WhenUserExists() throws Exception {
@@ -0,0 +1,76 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.utils.PersistentTestDataCreator;
+import com.openclassrooms.starterjwt.utils.SqlBudget;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Budgets SQL de /api/user avec les services réels (UserControllerIT les simule) ; pas de @Transactional : chaque
+ * requête exécute et valide ses propres requêtes SQL, comme en production, les données sont donc supprimées à la main.
+ */
+@ActiveProfiles("test")
+@SpringBootTest
+@AutoConfigureMockMvc
+class UserControllerSqlBudgetIT {
+    private static final String EMAIL = "budgetUtilisateur@test.com";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PersistentTestDataCreator testDataCreator;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    void deleteUser() {
+        userRepository.findByEmail(EMAIL).ifPresent(userRepository::delete);
+    }
+
+    @Test
+    @SqlBudget(1)
+    @WithMockUser
+    void findById_ShouldReadTheUserOnce() throws Exception {
+        User user = testDataCreator.createTestUser("budgetUtilisateur", false);
+
+        String eTag = mockMvc.perform(get("/api/user/" + user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email", is(EMAIL)))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/api/user/" + user.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/user/0"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    //utilisateur lu une fois (contexte de persistance de la requête), puis supprimé
+    @SqlBudget(2)
+    @WithMockUser(username = EMAIL)
+    void delete_ShouldReadThenDeleteTheUser() throws Exception {
+        User user = testDataCreator.createTestUser("budgetUtilisateur", false);
+
+        mockMvc.perform(delete("/api/user/" + user.getId()))
+                .andExpect(status().isOk());
+
+        assertFalse(userRepository.existsById(user.getId()));
+    }
+}
@@ -0,0 +1,198 @@
+package com.openclassrooms.starterjwt.datasource;
+
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.services.SessionService;
+import com.openclassrooms.starterjwt.utils.PersistentTestDataCreator;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Date;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ActiveProfiles({"test", "l2cache"})
+@SpringBootTest(properties = {
+        "oc.app.replica.url=" + ReplicaRoutingIT.REPLICA_URL,
+        "oc.app.replica.username=sa",
+        "oc.app.replica.password=password",
+        "oc.app.replica.readYourWritesMs=" + ReplicaRoutingIT.WINDOW_MS})
+@AutoConfigureMockMvc
+class ReplicaRoutingIT {
+    static final long WINDOW_MS = 5000;
+
+    static final String REPLICA_URL = "jdbc:h2:mem:replicadb;MODE=MYSQL;DB_CLOSE_DELAY=-1;DATABASE_TO_UPPER=false";
+
+    private static final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", "password"));
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private PersistentTestDataCreator testDataCreator;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MutableClock clock;
+
+    @TestConfiguration
+    static class ClockConfig {
+        @Bean
+        MutableClock clock() {
+            return new MutableClock();
+        }
+    }
+
+    //seconde base H2 : mêmes données que le primaire, sauf l'administrateur, différent pour savoir qui a répondu
+    @BeforeAll
+    static void initReplica() {
+        Flyway.configure().dataSource(replica.getDataSource()).load().migrate();
+        replica.update("UPDATE USERS SET first_name = 'Réplique', admin = false WHERE email = 'yoga@studio.com'");
+    }
+
+    //fenêtres des tests précédents refermées, cache Hibernate vide
+    @BeforeEach
+    void closeWindows() {
+        clock.advance(Duration.ofMillis(WINDOW_MS + 1));
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void readOnlyWork_ShouldBeServedByReplica_AndWritesByPrimary() throws Exception {
+        mockMvc.perform(get("/api/user/" + adminId()).with(user("lecteur")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.firstName", is("Réplique")));
+
+        //recherche de l'utilisateur à la connexion (lecture seule, requête anonyme)
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"yoga@studio.com\",\"password\":\"test!1234\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.admin", is(false)));
+
+        Session session = createSession("Session au primaire");
+        assertEquals(0, replica.queryForObject("SELECT COUNT(*) FROM SESSIONS WHERE id = ?", Integer.class,
+                session.getId()));
+    }
+
+    @Test
+    void reads_ShouldGoToPrimary_ForTheWriterOnly_DuringWindow() throws Exception {
+        Session session = createSession("Session à rejoindre");
+
+        mockMvc.perform(post("/api/session/" + session.getId() + "/participate/" + adminId()).with(user("ecrivain")))
+                .andExpect(status().isOk());
+
+        //le lecteur d'abord : l'entité lue ensuite au primaire par l'auteur serait servie à tous par le cache Hibernate
+        mockMvc.perform(get("/api/user/" + adminId()).with(user("lecteur")))
+                .andExpect(jsonPath("$.firstName", is("Réplique")));
+        mockMvc.perform(get("/api/user/" + adminId()).with(user("ecrivain")))
+                .andExpect(jsonPath("$.firstName", is("Admin")));
+
+        clock.advance(Duration.ofMillis(WINDOW_MS - 1));
+        mockMvc.perform(get("/api/user/" + adminId()).with(user("ecrivain")))
+                .andExpect(jsonPath("$.firstName", is("Admin")));
+
+        //fenêtre écoulée ; l'entité lue au primaire est retirée du cache Hibernate pour que la lecture atteigne la base
+        clock.advance(Duration.ofMillis(2));
+        entityManagerFactory.getCache().evictAll();
+        mockMvc.perform(get("/api/user/" + adminId()).with(user("ecrivain")))
+                .andExpect(jsonPath("$.firstName", is("Réplique")));
+    }
+
+    @Test
+    void cacheRefills_ShouldGoToPrimary_DuringWindow_WhateverTheUser() throws Exception {
+        //session et professeur absents de la réplique : un rechargement depuis la réplique ne les trouverait pas
+        Session session = createSession("Session en cache");
+
+        mockMvc.perform(post("/api/session/" + session.getId() + "/participate/" + adminId()).with(user("ecrivain")))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/session/" + session.getId()).with(user("lecteur")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users[0]", is(adminId().intValue())));
+        mockMvc.perform(get("/api/session").param("teacherId", session.getTeacher().getId().toString())
+                        .param("participants", "true").with(user("lecteur")))
+                .andExpect(jsonPath("$.sessions[0].users[0]", is(adminId().intValue())));
+        //les autres lectures du même utilisateur restent sur la réplique
+        mockMvc.perform(get("/api/user/" + adminId()).with(user("lecteur")))
+                .andExpect(jsonPath("$.firstName", is("Réplique")));
+    }
+
+    @Test
+    void secondLevelCache_ShouldNotKeepReplicaReads_DuringWindow() throws Exception {
+        Session session = createSession("Session sans cache");
+
+        mockMvc.perform(post("/api/session/" + session.getId() + "/participate/" + adminId()).with(user("ecrivain")))
+                .andExpect(status().isOk());
+
+        //lecture à la réplique d'un autre utilisateur : rien n'est mis en cache pour l'auteur de l'écriture
+        mockMvc.perform(get("/api/user/" + adminId()).with(user("lecteur")))
+                .andExpect(jsonPath("$.firstName", is("Réplique")));
+        mockMvc.perform(get("/api/user/" + adminId()).with(user("ecrivain")))
+                .andExpect(jsonPath("$.firstName", is("Admin")));
+    }
+
+    private static Long adminId() {
+        return replica.queryForObject("SELECT id FROM USERS WHERE email = 'yoga@studio.com'", Long.class);
+    }
+
+    private Session createSession(String name) {
+        return sessionService.create(Session.builder()
+                .name(name)
+                .description("Routage primaire / réplique")
+                .teacher(testDataCreator.createTestTeacher("profReplique"))
+                .date(new Date())
+                .build());
+    }
+
+    static class MutableClock extends Clock {
+        private volatile Instant now = Instant.now();
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.openclassrooms.starterjwt.mapper;
 
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.models.User;
@@ -17,6 +18,7 @@ import java.util.Arrays;
 import java.util.Collections;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -43,8 +45,7 @@ class SessionMapperTest {
         user2.setId(3L);
 
         when(teacherService.findById(1L)).thenReturn(new Teacher(1L, "Prof","Prénom", LocalDateTime.now(),LocalDateTime.now()));
-        when(userService.findById(2L)).thenReturn(user1);
-        when(userService.findById(3L)).thenReturn(user2);
+        when(userService.findAllById(Arrays.asList(2L, 3L))).thenReturn(Arrays.asList(user2, user1));
 
         Session session = sessionMapper.toEntity(sessionDto);
 
@@ -109,19 +110,49 @@ class SessionMapperTest {
     }
 
     @Test
-    void toEntity_ShouldHandleMissingUsersGracefully() {
+    void toEntity_ShouldReportAllUnknownUsers_InASingleError() {
         SessionDto sessionDto = new SessionDto();
         sessionDto.setDescription("Test Session");
-        sessionDto.setUsers(Arrays.asList(2L, 3L)); // IDs des utilisateurs
+        sessionDto.setUsers(Arrays.asList(2L, 3L, 4L)); // IDs des utilisateurs
+
+        User user3 = new User();
+        user3.setId(3L);
+        when(userService.findAllById(Arrays.asList(2L, 3L, 4L))).thenReturn(Collections.singletonList(user3)); // Simuler utilisateurs manquants
+
+        BadRequestException exception = assertThrows(BadRequestException.class, () -> sessionMapper.toEntity(sessionDto));
 
-        when(userService.findById(2L)).thenReturn(null); // Simuler utilisateur manquant
-        when(userService.findById(3L)).thenReturn(null);
+        assertEquals("Utilisateurs inconnus : [2, 4]", exception.getMessage());
+    }
+
+    @Test
+    void toEntity_ShouldQueryEachUserOnce_WhenIdsAreRepeated() {
+        SessionDto sessionDto = new SessionDto();
+        sessionDto.setUsers(Arrays.asList(3L, 2L, 3L));
+
+        User user1 = new User();
+        user1.setId(2L);
+        User user2 = new User();
+        user2.setId(3L);
+        when(userService.findAllById(Arrays.asList(3L, 2L))).thenReturn(Arrays.asList(user1, user2));
 
         Session session = sessionMapper.toEntity(sessionDto);
 
-        assertNotNull(session);
-        assertNotNull(session.getUsers());
-        //assertTrue(session.getUsers().isEmpty()); // La liste des utilisateurs doit être vide
+        assertEquals(Arrays.asList(user2, user1), session.getUsers());
+        verify(userService, times(1)).findAllById(any());
+        verify(userService, never()).findById(any());
+    }
+
+    @Test
+    void toEntity_ShouldReportUnknownTeacher() {
+        SessionDto sessionDto = new SessionDto();
+        sessionDto.setTeacher_id(9L);
+
+        when(teacherService.findById(9L)).thenReturn(null);
+
+        BadRequestException exception = assertThrows(BadRequestException.class, () -> sessionMapper.toEntity(sessionDto));
+
+        assertEquals("Professeur inconnu : 9", exception.getMessage());
+        verifyNoInteractions(userService);
     }
 
     @Test
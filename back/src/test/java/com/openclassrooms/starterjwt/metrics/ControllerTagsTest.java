@@ -0,0 +1,35 @@
+package com.openclassrooms.starterjwt.metrics;
+
+import com.openclassrooms.starterjwt.controllers.SessionController;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.method.HandlerMethod;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+class ControllerTagsTest {
+    private final ControllerTags controllerTags = new ControllerTags();
+
+    @Test
+    void getTags_ShouldNameControllerAndAction_WhenHandlerIsControllerMethod() throws Exception {
+        HandlerMethod handler = new HandlerMethod(mock(SessionController.class),
+                SessionController.class.getMethod("findById", String.class, WebRequest.class));
+
+        Iterable<Tag> tags = controllerTags.getTags(new MockHttpServletRequest(), new MockHttpServletResponse(),
+                handler, null);
+
+        assertEquals(Tags.of("controller", "SessionController", "action", "findById"), Tags.of(tags));
+    }
+
+    @Test
+    void getLongRequestTags_ShouldUseNone_WhenHandlerIsNotControllerMethod() {
+        Iterable<Tag> tags = controllerTags.getLongRequestTags(new MockHttpServletRequest(), new Object());
+
+        assertEquals(ControllerTags.NONE, Tags.of(tags));
+    }
+}
@@ -0,0 +1,34 @@
+package com.openclassrooms.starterjwt.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class HibernateRequestStatisticsTest {
+
+    @Test
+    void end_ShouldReturnCountersOfCurrentRequest_AndForgetThem() {
+        HibernateRequestStatistics.begin();
+        HibernateRequestStatistics.statementPrepared();
+        HibernateRequestStatistics.statementPrepared();
+        HibernateRequestStatistics.entityLoaded();
+        HibernateRequestStatistics.collectionFetched();
+
+        HibernateRequestStatistics statistics = HibernateRequestStatistics.end();
+
+        assertEquals(2, statistics.getStatements());
+        assertEquals(1, statistics.getEntityLoads());
+        assertEquals(1, statistics.getCollectionFetches());
+        assertNull(HibernateRequestStatistics.end());
+    }
+
+    @Test
+    void counters_ShouldBeIgnored_OutsideRequest() {
+        HibernateRequestStatistics.statementPrepared();
+        HibernateRequestStatistics.entityLoaded();
+        HibernateRequestStatistics.collectionFetched();
+
+        assertNull(HibernateRequestStatistics.end());
+    }
+}
@@ -0,0 +1,102 @@
+package com.openclassrooms.starterjwt.metrics;
+
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.services.SessionService;
+import com.openclassrooms.starterjwt.utils.PersistentTestDataCreator;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ActiveProfiles("test")
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+class MetricsIT {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private PersistentTestDataCreator testDataCreator;
+
+    @Test
+    void prometheus_ShouldBeUnauthorized_WhenNotAuthenticated() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @WithMockUser
+    @Test
+    void findById_ShouldRecordLatencyAndHibernateCounters_ForItsControllerMethod() throws Exception {
+        //pas de @Transactional : la lecture doit réellement passer par Hibernate pendant la requête HTTP
+        Session session = sessionService.create(Session.builder()
+                .name("Session mesurée")
+                .description("Métriques par requête")
+                .teacher(testDataCreator.createTestTeacher("profMetrics"))
+                .date(new Date())
+                .users(Arrays.asList(testDataCreator.createTestUser("metrics1", false),
+                        testDataCreator.createTestUser("metrics2", false)))
+                .build());
+
+        //minutage par phase désactivé par défaut : pas d'en-tête Server-Timing
+        mockMvc.perform(get("/api/session/" + session.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Server-Timing"));
+
+        Timer latency = meterRegistry.find("http.server.requests")
+                .tags("controller", "SessionController", "action", "findById").timer();
+        DistributionSummary statements = summary("hibernate.request.statements");
+        DistributionSummary entityLoads = summary("hibernate.request.entity.loads");
+        DistributionSummary collectionFetches = summary("hibernate.request.collection.fetches");
+        assertNotNull(latency);
+        assertEquals(1, latency.count());
+        assertEquals(1, statements.count());
+        //participants chargés en jointure (EAGER) : une requête, session + professeur + 2 utilisateurs
+        assertEquals(1, statements.totalAmount());
+        assertEquals(4, entityLoads.totalAmount());
+        assertEquals(0, collectionFetches.totalAmount());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString(
+                        "http_server_requests_seconds_bucket{action=\"findById\",controller=\"SessionController\"")))
+                .andExpect(content().string(containsString(
+                        "hibernate_request_entity_loads_count{action=\"findById\",controller=\"SessionController\",}")))
+                .andExpect(content().string(containsString("hibernate_statements_total")))
+                .andExpect(content().string(containsString("hikaricp_connections_acquire_seconds_bucket")))
+                .andExpect(content().string(containsString("jvm_gc_memory_allocated_bytes_total")));
+
+        sessionService.delete(session.getId());
+    }
+
+    private DistributionSummary summary(String name) {
+        DistributionSummary summary = meterRegistry.find(name)
+                .tags("controller", "SessionController", "action", "findById").summary();
+        assertNotNull(summary, name);
+        return summary;
+    }
+}
@@ -0,0 +1,72 @@
+package com.openclassrooms.starterjwt.metrics;
+
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.services.SessionService;
+import com.openclassrooms.starterjwt.utils.PersistentTestDataCreator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Collections;
+import java.util.Date;
+
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ActiveProfiles("test")
+@SpringBootTest(properties = {"oc.app.serverTiming=true", "oc.app.slowRequestMs=1"})
+@AutoConfigureMockMvc
+@ExtendWith(OutputCaptureExtension.class)
+class RequestTimingIT {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private PersistentTestDataCreator testDataCreator;
+
+    @WithMockUser
+    @Test
+    void findById_ShouldExposePhaseBreakdown_AndLogSlowRequest(CapturedOutput output) throws Exception {
+        //pas de @Transactional : la lecture doit réellement passer par la base pendant la requête HTTP
+        Session session = sessionService.create(Session.builder()
+                .name("Session minutée")
+                .description("Server-Timing")
+                .teacher(testDataCreator.createTestTeacher("profTiming"))
+                .date(new Date())
+                .users(Collections.singletonList(testDataCreator.createTestUser("timing1", false)))
+                .build());
+
+        //création sans mise en cache : la lecture passe par la base (une requête, participants en jointure)
+        mockMvc.perform(get("/api/session/" + session.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Session minutée"))
+                .andExpect(header().string("Server-Timing", allOf(
+                        containsString("auth;dur="),
+                        containsString("db;dur="),
+                        containsString(";desc=\"1 SQL\""),
+                        containsString("mapping;dur="),
+                        containsString("serialization;dur="),
+                        containsString("app;dur="),
+                        containsString("total;dur="))));
+
+        //accents du message selon l'encodage de la console : seule la partie ASCII est vérifiée
+        assertTrue(output.getOut().contains(" lente : GET /api/session/" + session.getId() + " -> 200"),
+                output.getOut());
+        assertTrue(output.getOut().contains("mapping="));
+    }
+}
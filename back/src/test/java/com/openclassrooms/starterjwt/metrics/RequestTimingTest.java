@@ -0,0 +1,73 @@
+package com.openclassrooms.starterjwt.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestTimingTest {
+
+    @Test
+    void nestedPhase_ShouldPauseItsParent_SoPhasesNeverExceedTotal() throws InterruptedException {
+        RequestTiming timing = RequestTiming.begin();
+        RequestTiming.enter(RequestTiming.MAPPING);
+        Thread.sleep(20);
+        RequestTiming.enter(RequestTiming.DB);
+        RequestTiming.sqlExecuted();
+        Thread.sleep(20);
+        RequestTiming.exit();
+        RequestTiming.exit();
+        RequestTiming.end(timing);
+
+        Map<String, Long> phases = timing.phases();
+        long mapping = phases.get(RequestTiming.MAPPING);
+        long db = phases.get(RequestTiming.DB);
+        assertTrue(mapping >= TimeUnit.MILLISECONDS.toNanos(20), "mapping : " + mapping);
+        assertTrue(db >= TimeUnit.MILLISECONDS.toNanos(20), "db : " + db);
+        assertTrue(mapping + db <= timing.totalNanos());
+        assertEquals(timing.totalNanos(), phases.values().stream().mapToLong(Long::longValue).sum());
+        assertEquals(1, timing.getSqlStatements());
+    }
+
+    @Test
+    void phases_ShouldBeIgnored_OutsideTimedRequest() {
+        RequestTiming.enter(RequestTiming.DB);
+        RequestTiming.sqlExecuted();
+        RequestTiming.exit();
+
+        RequestTiming timing = RequestTiming.begin();
+        RequestTiming.end(timing);
+        //une phase fermée après la fin de la requête n'est plus comptée
+        RequestTiming.exit();
+
+        assertEquals(0, timing.getSqlStatements());
+        assertEquals(1, timing.phases().size());
+    }
+
+    @Test
+    void toServerTiming_ShouldUseDecimalPoint_WhateverTheLocale() {
+        Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(Locale.FRANCE);
+        try {
+            RequestTiming timing = RequestTiming.begin();
+            RequestTiming.enter(RequestTiming.AUTH);
+            RequestTiming.exit();
+            RequestTiming.enter(RequestTiming.DB);
+            RequestTiming.sqlExecuted();
+            RequestTiming.sqlExecuted();
+            RequestTiming.exit();
+            RequestTiming.end(timing);
+
+            String header = timing.toServerTiming();
+
+            assertTrue(header.matches("auth;dur=\\d+\\.\\d{3}, db;dur=\\d+\\.\\d{3};desc=\"2 SQL\", "
+                    + "app;dur=\\d+\\.\\d{3}, total;dur=\\d+\\.\\d{3}"), header);
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+}
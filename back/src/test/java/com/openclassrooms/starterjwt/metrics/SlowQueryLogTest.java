@@ -0,0 +1,95 @@
+package com.openclassrooms.starterjwt.metrics;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SlowQueryLogTest {
+    private final Logger logger = (Logger) LoggerFactory.getLogger(SlowQueryLog.class);
+
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @BeforeEach
+    void setUp() {
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(appender);
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void executed_ShouldLogSlowStatement_WithRowsAndWithoutValues() throws Throwable {
+        Object result = new SlowQueryLog(5, 0).executed("UPDATE USERS SET admin = true WHERE email = 'yoga@studio.com'"
+                + " AND id > 12", () -> {
+            Thread.sleep(10);
+            return 3;
+        });
+
+        assertEquals(3, result);
+        assertEquals(1, appender.list.size());
+        ILoggingEvent event = appender.list.get(0);
+        assertEquals(Level.WARN, event.getLevel());
+        assertThat(event.getFormattedMessage(), containsString(" ms, 3 ligne(s), thread "));
+        assertThat(event.getFormattedMessage(),
+                containsString(": UPDATE USERS SET admin = true WHERE email = ? AND id > ?"));
+    }
+
+    @Test
+    void executed_ShouldNotLog_WhenFastAndNotSampled() throws Throwable {
+        new SlowQueryLog(1_000, 0).executed("SELECT 1", () -> 1);
+
+        assertEquals(0, appender.list.size());
+    }
+
+    @Test
+    void observe_ShouldLogRowsRead_AndCallingControllerMethod_WhenSampled() throws NoSuchMethodException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/session");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE,
+                new HandlerMethod(this, getClass().getDeclaredMethod("findAll")));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(JdbcObservation.observe(new DriverManagerDataSource(
+                "jdbc:h2:mem:slow-" + UUID.randomUUID(), "sa", ""), new SlowQueryLog(0, 1)));
+
+        assertEquals(7, jdbcTemplate.queryForList("SELECT X FROM SYSTEM_RANGE(1, 7)").size());
+
+        assertEquals(1, appender.list.size());
+        ILoggingEvent event = appender.list.get(0);
+        assertEquals(Level.INFO, event.getLevel());
+        assertThat(event.getFormattedMessage(), containsString(" ms, 7 ligne(s), SlowQueryLogTest.findAll : "
+                + "SELECT X FROM SYSTEM_RANGE(?, ?)"));
+    }
+
+    @Test
+    void caller_ShouldFallBackToRequest_WhenNoControllerMethod() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(
+                new MockHttpServletRequest("POST", "/api/auth/login")));
+
+        assertEquals("POST /api/auth/login", SlowQueryLog.caller());
+    }
+
+    @SuppressWarnings("unused")
+    private void findAll() {
+    }
+}
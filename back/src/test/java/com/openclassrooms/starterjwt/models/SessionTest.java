@@ -9,10 +9,12 @@ import javax.validation.Validation;
 import javax.validation.Validator;
 import javax.validation.ValidatorFactory;
 import java.util.Date;
+import java.util.List;
 import java.util.Locale;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
@@ -78,4 +80,16 @@ class SessionTest {
         assertTrue(violations.isEmpty());
     }
 
-}
\ No newline at end of file
+    @Test
+    void toString_ShouldNotReadParticipants() {
+        Session session = Session.builder()
+                .id(1L)
+                .name("session yoga")
+                .users(List.of(User.builder().id(2L).email("participant@test.com").lastName("Nom")
+                        .firstName("Prénom").password("x").build()))
+                .build();
+
+        assertTrue(session.toString().contains("session yoga"));
+        assertFalse(session.toString().contains("participant@test.com"));
+    }
+}
@@ -0,0 +1,65 @@
+package com.openclassrooms.starterjwt.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Une base créée par l'ancien script ressources/sql/script.sql (sans historique Flyway) est marquée en V2 au
+ * démarrage, comme le prévoit spring.flyway.baseline-version : les migrations suivantes doivent l'amener au schéma
+ * d'une base migrée de zéro.
+ */
+class MigrationBaselineTest {
+    private final List<JdbcTemplate> databases = new ArrayList<>();
+
+    private DataSource newDatabase() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:baseline-" + UUID.randomUUID() + ";MODE=MYSQL;DB_CLOSE_DELAY=-1;DATABASE_TO_UPPER=false",
+                "sa", "password");
+        databases.add(new JdbcTemplate(dataSource));
+        return dataSource;
+    }
+
+    @AfterEach
+    void dropDatabases() {
+        databases.forEach(jdbcTemplate -> jdbcTemplate.execute("DROP ALL OBJECTS"));
+    }
+
+    @Test
+    void migrate_ShouldBringBaselinedDatabase_ToTheSchemaOfAFreshOne() {
+        DataSource fresh = newDatabase();
+        Flyway.configure().dataSource(fresh).load().migrate();
+
+        DataSource legacy = newDatabase();
+        new ResourceDatabasePopulator(new ClassPathResource("script-avant-flyway.sql")).execute(legacy);
+        Flyway.configure().dataSource(legacy).baselineOnMigrate(true).baselineVersion("2").load().migrate();
+
+        assertEquals(columns(new JdbcTemplate(fresh)), columns(new JdbcTemplate(legacy)));
+        assertEquals(indexes(new JdbcTemplate(fresh)), indexes(new JdbcTemplate(legacy)));
+        assertEquals(1, new JdbcTemplate(legacy).queryForObject(
+                "SELECT COUNT(*) FROM USERS WHERE email = 'yoga@studio.com'", Integer.class));
+    }
+
+    private static List<Map<String, Object>> columns(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForList("SELECT TABLE_NAME, COLUMN_NAME, TYPE_NAME, IS_NULLABLE"
+                + " FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_SCHEMA = 'PUBLIC' AND TABLE_NAME <> 'flyway_schema_history'"
+                + " ORDER BY TABLE_NAME, COLUMN_NAME");
+    }
+
+    private static List<Map<String, Object>> indexes(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForList("SELECT DISTINCT TABLE_NAME, INDEX_NAME FROM INFORMATION_SCHEMA.INDEXES"
+                + " WHERE TABLE_SCHEMA = 'PUBLIC' AND INDEX_NAME LIKE 'idx%' ORDER BY TABLE_NAME, INDEX_NAME");
+    }
+}
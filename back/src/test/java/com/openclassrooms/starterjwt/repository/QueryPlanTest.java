@@ -0,0 +1,128 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.payload.request.SessionCursor;
+import com.openclassrooms.starterjwt.utils.DatasetGenerator;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+
+/**
+ * Plans d'exécution (EXPLAIN H2) des requêtes les plus fréquentes sur PARTICIPATE et SESSIONS, sur une base migrée
+ * puis remplie par {@link DatasetGenerator} : un parcours complet de table fait échouer le test. Les requêtes sont
+ * celles des repositories (constantes et construction de la page de résumés), avec des paramètres représentatifs.
+ */
+class QueryPlanTest {
+    private static JdbcTemplate jdbcTemplate;
+
+    private static NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @BeforeAll
+    static void createDatabase() {
+        DataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:plans-" + UUID.randomUUID() + ";MODE=MYSQL;DB_CLOSE_DELAY=-1;DATABASE_TO_UPPER=false",
+                "sa", "password");
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        new DatasetGenerator(dataSource, DatasetGenerator.Config.scaledTo(5_000).build()).generate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        //statistiques de sélectivité à jour, comme sur une base en service
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @AfterAll
+    static void dropDatabase() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void participationChecks_ShouldUsePrimaryKey() {
+        String delete = plan(ParticipationRepository.DELETE_SQL, participation());
+
+        assertThat(delete, containsString("PRIMARY_KEY"));
+        assertIndexOnly(delete);
+    }
+
+    @Test
+    void participationState_ShouldUseAnIndexForEachLookup() {
+        assertIndexOnly(plan(ParticipationRepository.FIND_STATE_SQL, participation()));
+        assertIndexOnly(plan(ParticipationRepository.SESSION_EXISTS_SQL, participation()));
+        assertIndexOnly(plan(ParticipationRepository.HAS_SEAT_AVAILABLE_SQL, participation()));
+    }
+
+    @Test
+    void conditionalInsert_ShouldUseAnIndexForEachCheck() {
+        //inscription directe et promotion depuis la file d'attente
+        String reservation = plan(ParticipationRepository.INSERT_IF_SEAT_AVAILABLE_SQL, participation());
+
+        assertThat(reservation, containsString("PRIMARY_KEY"));
+        assertIndexOnly(reservation);
+    }
+
+    @Test
+    void sessionsOfUser_ShouldUseReverseIndex() {
+        //recherche faite par la clé étrangère vers USERS à la suppression d'un utilisateur (aucun repository)
+        assertThat(plan("SELECT p.session_id FROM PARTICIPATE p WHERE p.user_id = :userId", participation()),
+                containsString("idx_participate_user_session"));
+    }
+
+    @Test
+    void summaryPages_ShouldUseDateAndTeacherIndexes() {
+        MapSqlParameterSource byDateParams = new MapSqlParameterSource();
+        String byDate = plan(SessionSummaryRepository.pageSql(
+                new SessionCursor(timestamp("2025-03-02"), 10L), 21, timestamp("2025-03-01"), null, null,
+                byDateParams), byDateParams);
+        MapSqlParameterSource byTeacherParams = new MapSqlParameterSource();
+        String byTeacher = plan(SessionSummaryRepository.pageSql(null, 21, null, null, 2L, byTeacherParams),
+                byTeacherParams);
+        MapSqlParameterSource firstPageParams = new MapSqlParameterSource();
+        String firstPage = plan(SessionSummaryRepository.pageSql(null, 21, null, null, null, firstPageParams),
+                firstPageParams);
+        String participants = plan(SessionSummaryRepository.PARTICIPANTS_SQL,
+                new MapSqlParameterSource("ids", List.of(1L, 2L, 3L)));
+
+        assertThat(byDate, containsString("idx_sessions_date_id"));
+        //valeur liée : H2 choisit l'index de la clé étrangère ou idx_sessions_teacher_date_id, tous deux sur teacher_id
+        assertThat(byTeacher, containsString(": teacher_id = ?1 ++/"));
+        assertThat(firstPage, containsString("idx_sessions_date_id"));
+        //participants comptés par la clé primaire de PARTICIPATE
+        assertThat(firstPage, containsString("PRIMARY_KEY"));
+        assertIndexOnly(byDate);
+        assertIndexOnly(byTeacher);
+        assertIndexOnly(firstPage);
+        assertThat(participants, containsString("PRIMARY_KEY"));
+        assertIndexOnly(participants);
+    }
+
+    private static MapSqlParameterSource participation() {
+        return new MapSqlParameterSource()
+                .addValue("sessionId", 3L)
+                .addValue("userId", 5L);
+    }
+
+    private static Date timestamp(String day) {
+        return Timestamp.valueOf(day + " 00:00:00");
+    }
+
+    private static String plan(String sql, MapSqlParameterSource params) {
+        return namedJdbcTemplate.queryForObject("EXPLAIN " + sql, params, String.class);
+    }
+
+    private static void assertIndexOnly(String plan) {
+        assertThat(plan, not(containsString("tableScan")));
+    }
+}
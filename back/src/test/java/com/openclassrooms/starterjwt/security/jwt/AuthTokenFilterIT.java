@@ -0,0 +1,100 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import com.openclassrooms.starterjwt.services.TeacherService;
+import com.openclassrooms.starterjwt.services.UserService;
+import com.openclassrooms.starterjwt.utils.PersistentTestDataCreator;
+import com.openclassrooms.starterjwt.utils.SqlStatementCounter;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ActiveProfiles("test")
+@SpringBootTest
+@AutoConfigureMockMvc
+class AuthTokenFilterIT {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TeacherService teacherService;
+
+    @Autowired
+    private PersistentTestDataCreator testDataCreator;
+
+    @Autowired
+    private SqlStatementCounter sqlStatementCounter;
+
+    @Value("${oc.app.jwtSecret}")
+    private String jwtSecret;
+
+    @Test
+    void authenticatedRequests_ShouldNotReloadTheUser_AndRejectTokensOfDeletedUsers() throws Exception {
+        //pas de @Transactional : la suppression de l'utilisateur doit être réelle
+        User user = testDataCreator.createTestUser("porteurJeton", false);
+        String bearer = "Bearer " + tokenFor(user);
+        teacherService.refresh(); // /api/teacher servi depuis la mémoire
+
+        sqlStatementCounter.reset();
+        mockMvc.perform(get("/api/teacher").header(HttpHeaders.AUTHORIZATION, bearer)).andExpect(status().isOk());
+        // première requête : seule la vérification d'existence de l'utilisateur, mise en cache
+        assertEquals(1, sqlStatementCounter.count(), () -> String.join("\n", sqlStatementCounter.statements()));
+
+        sqlStatementCounter.reset();
+        mockMvc.perform(get("/api/teacher").header(HttpHeaders.AUTHORIZATION, bearer)).andExpect(status().isOk());
+        assertEquals(0, sqlStatementCounter.count(), () -> String.join("\n", sqlStatementCounter.statements()));
+
+        userService.delete(user.getId());
+
+        mockMvc.perform(get("/api/teacher").header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void authenticatedRequests_ShouldStillAcceptTokensIssuedWithoutUserClaims() throws Exception {
+        // jeton émis avant l'ajout de l'id et des noms : l'utilisateur est relu par son email
+        String legacyToken = Jwts.builder()
+                .setSubject("yoga@studio.com")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(SignatureAlgorithm.HS512, jwtSecret)
+                .compact();
+
+        mockMvc.perform(get("/api/teacher").header(HttpHeaders.AUTHORIZATION, "Bearer " + legacyToken))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/teacher").header(HttpHeaders.AUTHORIZATION, "Bearer invalide"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private String tokenFor(User user) {
+        UserDetailsImpl userDetails = UserDetailsImpl.builder()
+                .id(user.getId())
+                .username(user.getEmail())
+                .firstName(user.getFirstName())
+                .lastName(user.getLastName())
+                .admin(user.isAdmin())
+                .build();
+        return jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(userDetails, null));
+    }
+}
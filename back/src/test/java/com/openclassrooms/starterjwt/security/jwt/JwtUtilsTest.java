@@ -0,0 +1,75 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+
+class JwtUtilsTest {
+    private JwtUtils jwtUtils;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", "secretDeTest");
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 60_000);
+    }
+
+    @Test
+    void getVerifiedClaims_ShouldReturnClaims_AndServeRepeatedTokenFromCache() {
+        String token = generateToken("yoga@studio.com");
+
+        JwtClaims claims = jwtUtils.getVerifiedClaims(token);
+
+        assertNotNull(claims);
+        assertEquals("yoga@studio.com", claims.getUsername());
+        assertEquals(1L, claims.getId());
+        assertEquals("Prénom", claims.getFirstName());
+        assertEquals("Nom", claims.getLastName());
+        assertEquals(true, claims.getAdmin());
+        assertTrue(claims.getExpiration().after(claims.getIssuedAt()));
+        // même instance : la signature n'a pas été vérifiée une seconde fois
+        assertSame(claims, jwtUtils.getVerifiedClaims(token));
+        assertEquals(1, jwtUtils.cachedTokenCount());
+    }
+
+    @Test
+    void getVerifiedClaims_ShouldReturnNull_WhenSignatureIsInvalid() {
+        String token = generateToken("yoga@studio.com");
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", "autreSecret");
+
+        assertNull(jwtUtils.getVerifiedClaims(token));
+        assertEquals(0, jwtUtils.cachedTokenCount());
+    }
+
+    @Test
+    void getVerifiedClaims_ShouldReturnNull_WhenTokenIsExpired() {
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", -1_000);
+        String token = generateToken("yoga@studio.com");
+
+        assertNull(jwtUtils.getVerifiedClaims(token));
+        assertEquals(0, jwtUtils.cachedTokenCount());
+    }
+
+    @Test
+    void getVerifiedClaims_ShouldReturnNull_WhenTokenIsMalformedOrEmpty() {
+        assertNull(jwtUtils.getVerifiedClaims("pas.un.jeton"));
+        assertNull(jwtUtils.getVerifiedClaims(""));
+        assertNull(jwtUtils.getVerifiedClaims(null));
+    }
+
+    private String generateToken(String username) {
+        UserDetailsImpl userDetails = UserDetailsImpl.builder()
+                .id(1L)
+                .username(username)
+                .firstName("Prénom")
+                .lastName("Nom")
+                .admin(true)
+                .build();
+        return jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(userDetails, null));
+    }
+}
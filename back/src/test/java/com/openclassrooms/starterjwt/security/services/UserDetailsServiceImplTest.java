@@ -34,6 +34,7 @@ class UserDetailsServiceImplTest {
         assertNotNull(userDetails);
         assertEquals(username, userDetails.getUsername());
         assertEquals("test!1234", userDetails.getPassword());
+        assertEquals(false, ((UserDetailsImpl) userDetails).getAdmin());
     }
 
     @Test
@@ -0,0 +1,75 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class UserRevocationServiceTest {
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+    }
+
+    @Test
+    void isActive_ShouldQueryDatabaseOncePerUser_WhenCheckIsCached() {
+        UserRevocationService service = new UserRevocationService(userRepository, UserRevocationService.CHECK_CACHED, 60_000, 86_400_000);
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.existsById(2L)).thenReturn(false);
+
+        assertTrue(service.isActive(1L));
+        assertTrue(service.isActive(1L));
+        assertFalse(service.isActive(2L));
+
+        verify(userRepository, times(1)).existsById(1L);
+        verify(userRepository, times(1)).existsById(2L);
+    }
+
+    @Test
+    void revoke_ShouldRejectUserImmediately_EvenIfCachedAsActive() {
+        UserRevocationService service = new UserRevocationService(userRepository, UserRevocationService.CHECK_CACHED, 60_000, 86_400_000);
+        when(userRepository.existsById(1L)).thenReturn(true);
+        assertTrue(service.isActive(1L));
+
+        service.revoke(1L);
+
+        assertFalse(service.isActive(1L));
+    }
+
+    @Test
+    void isActive_ShouldNeverQueryDatabase_WhenCheckIsNone() {
+        UserRevocationService service = new UserRevocationService(userRepository, UserRevocationService.CHECK_NONE, 60_000, 86_400_000);
+
+        assertTrue(service.isActive(1L));
+        service.revoke(1L);
+        assertFalse(service.isActive(1L));
+
+        verify(userRepository, never()).existsById(any());
+    }
+
+    @Test
+    void revoke_ShouldOutliveCheckCache_UntilTokensExpire() throws InterruptedException {
+        UserRevocationService none = new UserRevocationService(userRepository, UserRevocationService.CHECK_NONE, 1, 86_400_000);
+        UserRevocationService cached = new UserRevocationService(userRepository, UserRevocationService.CHECK_CACHED, 1, 86_400_000);
+        when(userRepository.existsById(1L)).thenReturn(true);
+
+        none.revoke(1L);
+        cached.revoke(1L);
+        //entrées de vérification expirées : la révocation tient jusqu'à l'expiration des jetons
+        Thread.sleep(20);
+
+        assertFalse(none.isActive(1L));
+        assertFalse(cached.isActive(1L));
+        verify(userRepository, never()).existsById(any());
+    }
+
+    @Test
+    void constructor_ShouldRejectUnknownMode() {
+        assertThrows(IllegalArgumentException.class, () -> new UserRevocationService(userRepository, "database", 60_000, 86_400_000));
+    }
+}
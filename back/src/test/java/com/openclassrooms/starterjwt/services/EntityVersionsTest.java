@@ -0,0 +1,82 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EntityVersionsTest {
+    private static final LocalDateTime UPDATED_AT = LocalDateTime.of(2025, 1, 1, 10, 0);
+
+    private static Session session() {
+        return Session.builder()
+                .id(7L)
+                .name("Session yoga")
+                .description("Description")
+                .date(new Date(1700000000000L))
+                .capacity(10)
+                .teacher(Teacher.builder().id(1L).build())
+                .users(new ArrayList<>())
+                .updatedAt(UPDATED_AT)
+                .build();
+    }
+
+    private static User participant(long id) {
+        return User.builder().id(id).email(id + "@test.com").lastName("Nom").firstName("Prénom").password("x").build();
+    }
+
+    @Test
+    void of_Session_ShouldBeStable_ForSameContent() {
+        assertEquals(EntityVersions.of(session()), EntityVersions.of(session()));
+        assertTrue(EntityVersions.of(session()).startsWith("7-0-"));
+        //session sans participants chargés
+        assertTrue(EntityVersions.of(session().setUsers(null)).startsWith("7-0-"));
+    }
+
+    @Test
+    void of_Session_ShouldChange_WithParticipantsOrFields_EvenWithSameUpdatedAt() {
+        String version = EntityVersions.of(session());
+
+        Session withParticipant = session();
+        withParticipant.getUsers().add(participant(3L));
+        Session otherParticipant = session();
+        otherParticipant.getUsers().add(participant(4L));
+
+        assertNotEquals(version, EntityVersions.of(withParticipant));
+        assertNotEquals(EntityVersions.of(withParticipant), EntityVersions.of(otherParticipant));
+        assertNotEquals(version, EntityVersions.of(session().setName("Renommée")));
+        assertNotEquals(version, EntityVersions.of(session().setUpdatedAt(UPDATED_AT.plusSeconds(1))));
+    }
+
+    @Test
+    void of_Session_ShouldIgnoreParticipantOrder() {
+        Session ordered = session();
+        ordered.getUsers().addAll(List.of(participant(3L), participant(4L), participant(12L)));
+        Session shuffled = session();
+        shuffled.getUsers().addAll(List.of(participant(12L), participant(3L), participant(4L)));
+
+        assertEquals(EntityVersions.of(ordered), EntityVersions.of(shuffled));
+        //empreinte de 128 bits en hexadécimal
+        assertTrue(EntityVersions.of(ordered).matches("7-3-[0-9a-f]{32}"));
+    }
+
+    @Test
+    void of_User_ShouldChange_WithExposedFields() {
+        User user = User.builder().id(2L).email("a@test.com").lastName("Nom").firstName("Prénom")
+                .password("x").updatedAt(UPDATED_AT).build();
+        String version = EntityVersions.of(user);
+
+        assertTrue(version.startsWith("2-"));
+        assertEquals(version, EntityVersions.of(user.setPassword("y")));
+        assertNotEquals(version, EntityVersions.of(user.setAdmin(true)));
+    }
+}
@@ -0,0 +1,144 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.exception.ConflictException;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.utils.PersistentTestDataCreator;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ActiveProfiles("test")
+@Slf4j
+@SpringBootTest
+class SeatReservationServiceIT {
+    private static final int CAPACITY = 20;
+
+    private static final int CANDIDATES = 300;
+
+    private static final int THREADS = 32;
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private SeatReservationService seatReservationService;
+
+    @Autowired
+    private WaitlistService waitlistService;
+
+    @Autowired
+    private PersistentTestDataCreator testDataCreator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void participate_ShouldNeverOverbook_WhenCandidatesRushTheSameSession() throws Exception {
+        //pas de @Transactional : chaque inscription doit être réellement commitée, comme en production
+        Session session = sessionService.create(Session.builder()
+                .name("Ouverture des réservations")
+                .description("Session très demandée")
+                .teacher(testDataCreator.createTestTeacher("profStress"))
+                .date(new Date())
+                .capacity(CAPACITY)
+                .build());
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < CANDIDATES; i++) {
+            User user = testDataCreator.createTestUser("stress" + i, false);
+            userIds.add(user.getId());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Long userId : userIds) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        sessionService.participate(session.getId(), userId);
+                        accepted.incrementAndGet();
+                    } catch (ConflictException e) {
+                        refused.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+            double seconds = (System.nanoTime() - begin) / 1_000_000_000d;
+            log.info("{} demandes d'inscription traitées en {} ms, soit {} demandes/s ({} acceptées, {} refusées)",
+                    CANDIDATES, Math.round(seconds * 1000), Math.round(CANDIDATES / seconds), accepted.get(), refused.get());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Integer participants = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM PARTICIPATE WHERE session_id = ?", Integer.class, session.getId());
+        assertEquals(CAPACITY, participants);
+        assertEquals(CAPACITY, accepted.get());
+        assertEquals(CANDIDATES - CAPACITY, refused.get());
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        //nettoyage : la base H2 est partagée par les autres tests d'intégration
+        jdbcTemplate.update("DELETE FROM PARTICIPATE WHERE session_id = ?", session.getId());
+        jdbcTemplate.update("DELETE FROM SESSIONS WHERE id = ?", session.getId());
+    }
+
+    @Test
+    void release_ShouldKeepWaitlistHead_WhenSessionIsStillFull() {
+        Session session = sessionService.create(Session.builder()
+                .name("Capacité réduite")
+                .description("Capacité abaissée après les inscriptions")
+                .teacher(testDataCreator.createTestTeacher("profCapacite"))
+                .date(new Date())
+                .capacity(3)
+                .build());
+        List<Long> participants = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Long userId = testDataCreator.createTestUser("capacite" + i, false).getId();
+            sessionService.participate(session.getId(), userId);
+            participants.add(userId);
+        }
+        Long waiting = testDataCreator.createTestUser("capaciteAttente", false).getId();
+        jdbcTemplate.update("UPDATE SESSIONS SET capacity = 1 WHERE id = ?", session.getId());
+        waitlistService.join(session.getId(), waiting);
+
+        //3 inscrits pour 1 place : la désinscription ne libère pas de place
+        assertTrue(seatReservationService.release(session.getId(), participants.get(0)));
+        assertEquals(1L, waitlistService.getPosition(session.getId(), waiting).getPosition());
+        assertTrue(seatReservationService.release(session.getId(), participants.get(1)));
+        assertEquals(1L, waitlistService.getPosition(session.getId(), waiting).getPosition());
+
+        //la dernière place libérée revient à la tête de file
+        assertTrue(seatReservationService.release(session.getId(), participants.get(2)));
+        assertEquals(List.of(waiting), jdbcTemplate.queryForList(
+                "SELECT user_id FROM PARTICIPATE WHERE session_id = ?", Long.class, session.getId()));
+
+        jdbcTemplate.update("DELETE FROM PARTICIPATE WHERE session_id = ?", session.getId());
+        jdbcTemplate.update("DELETE FROM SESSIONS WHERE id = ?", session.getId());
+    }
+}
@@ -0,0 +1,118 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.dto.WaitlistPositionDto;
+import com.openclassrooms.starterjwt.repository.ParticipationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class SeatReservationServiceTest {
+    private ParticipationRepository participationRepository; // mocké
+    private WaitlistService waitlistService; // mocké
+    private SeatReservationService seatReservationService;
+
+    @BeforeEach
+    void setUp() {
+        participationRepository = Mockito.mock(ParticipationRepository.class);
+        waitlistService = Mockito.mock(WaitlistService.class);
+        PlatformTransactionManager transactionManager = Mockito.mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        seatReservationService = new SeatReservationService(participationRepository, waitlistService, transactionManager);
+    }
+
+    @Test
+    void reserve_ShouldReturnTrue_WhenRowIsInserted() {
+        when(participationRepository.insertIfSeatAvailable(1L, 2L)).thenReturn(1);
+
+        assertTrue(seatReservationService.reserve(1L, 2L));
+        assertFalse(seatReservationService.lockFor(1L).isLocked());
+    }
+
+    @Test
+    void reserve_ShouldReturnFalse_WhenNothingIsInserted() {
+        when(participationRepository.insertIfSeatAvailable(1L, 2L)).thenReturn(0);
+
+        assertFalse(seatReservationService.reserve(1L, 2L));
+    }
+
+    @Test
+    void reserve_ShouldRetry_WhenConcurrencyFailureOccurs() {
+        when(participationRepository.insertIfSeatAvailable(1L, 2L))
+                .thenThrow(new CannotAcquireLockException("interblocage"))
+                .thenReturn(1);
+
+        assertTrue(seatReservationService.reserve(1L, 2L));
+        verify(participationRepository, times(2)).insertIfSeatAvailable(1L, 2L);
+    }
+
+    @Test
+    void reserve_ShouldGiveUpAfterMaxAttempts_AndReleaseLock() {
+        when(participationRepository.insertIfSeatAvailable(1L, 2L)).thenThrow(new CannotAcquireLockException("interblocage"));
+
+        assertThrows(CannotAcquireLockException.class, () -> seatReservationService.reserve(1L, 2L));
+        verify(participationRepository, times(SeatReservationService.MAX_ATTEMPTS)).insertIfSeatAvailable(1L, 2L);
+        assertFalse(seatReservationService.lockFor(1L).isLocked());
+    }
+
+    @Test
+    void reserve_ShouldNotRetry_WhenCallerTransactionIsActive() {
+        when(participationRepository.insertIfSeatAvailable(1L, 2L)).thenThrow(new CannotAcquireLockException("interblocage"));
+
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            assertThrows(CannotAcquireLockException.class, () -> seatReservationService.reserve(1L, 2L));
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+        verify(participationRepository, times(1)).insertIfSeatAvailable(1L, 2L);
+    }
+
+    @Test
+    void release_ShouldPromoteWaitlistHead_WhenSeatIsFreed() {
+        when(participationRepository.delete(1L, 2L)).thenReturn(1);
+        when(waitlistService.promoteHead(1L)).thenReturn(Optional.of(3L));
+
+        assertTrue(seatReservationService.release(1L, 2L));
+        verify(waitlistService, times(1)).promoteHead(1L);
+        assertFalse(seatReservationService.lockFor(1L).isLocked());
+    }
+
+    @Test
+    void joinWaitlist_ShouldRunUnderSessionLock_ThenReleaseIt() {
+        WaitlistPositionDto position = new WaitlistPositionDto(1L, 2L, 1L);
+        when(waitlistService.join(1L, 2L)).thenAnswer(invocation -> {
+            // même verrou que release : pas de place libérée pendant l'ajout en file
+            assertTrue(seatReservationService.lockFor(1L).isHeldByCurrentThread());
+            return position;
+        });
+
+        assertSame(position, seatReservationService.joinWaitlist(1L, 2L));
+        verify(waitlistService, times(1)).join(1L, 2L);
+        assertFalse(seatReservationService.lockFor(1L).isLocked());
+    }
+
+    @Test
+    void release_ShouldReturnFalseWithoutPromotion_WhenUserDidNotParticipate() {
+        when(participationRepository.delete(1L, 2L)).thenReturn(0);
+
+        assertFalse(seatReservationService.release(1L, 2L));
+        verifyNoInteractions(waitlistService);
+    }
+
+    @Test
+    void lockFor_ShouldShareStripeBetweenSessionsWithSameHash() {
+        assertSame(seatReservationService.lockFor(3L), seatReservationService.lockFor(3L + SeatReservationService.STRIPES));
+        assertNotSame(seatReservationService.lockFor(3L), seatReservationService.lockFor(4L));
+    }
+}
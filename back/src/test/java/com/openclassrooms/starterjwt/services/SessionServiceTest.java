@@ -1,67 +1,76 @@
 package com.openclassrooms.starterjwt.services;
 
+import com.openclassrooms.starterjwt.cache.SessionListCache;
+import com.openclassrooms.starterjwt.dto.SessionSummaryDto;
 import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.exception.ConflictException;
 import com.openclassrooms.starterjwt.exception.NotFoundException;
 import com.openclassrooms.starterjwt.models.Session;
-import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.payload.request.SessionCursor;
+import com.openclassrooms.starterjwt.repository.ParticipationRepository;
+import com.openclassrooms.starterjwt.repository.ParticipationRepository.ParticipationState;
 import com.openclassrooms.starterjwt.repository.SessionRepository;
-import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.repository.SessionSummaryRepository;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.data.domain.Slice;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+@ActiveProfiles("test")
 @SpringBootTest
 class SessionServiceTest {
     private SessionService sessionService;
     private SessionRepository sessionRepository; // mocké
-    private UserRepository userRepository; // mocké
+    private SessionSummaryRepository sessionSummaryRepository; // mocké
+    private ParticipationRepository participationRepository; // mocké
+    private SeatReservationService seatReservationService; // mocké
+    private WaitlistService waitlistService; // mocké
+    private SessionListCache sessionListCache; // mocké
 
     @BeforeEach
     void setUp() {
         sessionRepository = Mockito.mock(SessionRepository.class);
-        userRepository = Mockito.mock(UserRepository.class);
-
-        sessionService = new SessionService(sessionRepository, userRepository);
+        sessionSummaryRepository = Mockito.mock(SessionSummaryRepository.class);
+        participationRepository = Mockito.mock(ParticipationRepository.class);
+        seatReservationService = Mockito.mock(SeatReservationService.class);
+        waitlistService = Mockito.mock(WaitlistService.class);
+        sessionListCache = Mockito.mock(SessionListCache.class);
+
+        sessionService = new SessionService(sessionRepository, sessionSummaryRepository, participationRepository,
+                seatReservationService, waitlistService, sessionListCache);
     }
 
     @AfterEach
     void tearDown() {
-        Mockito.reset(sessionRepository, userRepository);
+        Mockito.reset(sessionRepository, sessionSummaryRepository, participationRepository, seatReservationService,
+                waitlistService, sessionListCache);
     }
 
     @Test
-    void participate_ShouldAddUserToSession_WhenValidIdsAreProvided() {
+    void participate_ShouldReserveSeat_WhenValidIdsAreProvided() {
         Long sessionId = 1L;
         Long userId = 2L;
 
-        User user = new User();
-        user.setId(userId);
-
-        Session session = new Session();
-        session.setId(sessionId);
-        session.setUsers(new ArrayList<>());
-
-        when(sessionRepository.findById(sessionId)).thenReturn(Optional.of(session));
-        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
-        // any(Session.class) est un matcher de Mockito indiquant que la méthode save()
-        // acceptera n'importe quel objet de type Session comme argument.
-        when(sessionRepository.save(any(Session.class))).thenReturn(session);
+        when(seatReservationService.reserve(sessionId, userId)).thenReturn(true);
 
         // appeler méthode métier participate :
         sessionService.participate(sessionId, userId);
 
-        // Assert
-        verify(sessionRepository, times(1)).save(session);
-        assertTrue(session.getUsers().contains(user));
+        // réservation acceptée : aucune requête de diagnostic, la session n'est ni chargée ni sauvegardée
+        verify(seatReservationService, times(1)).reserve(sessionId, userId);
+        verifyNoInteractions(participationRepository, sessionRepository);
+        verify(sessionListCache, times(1)).invalidate();
     }
 
     @Test
@@ -69,7 +78,7 @@ class SessionServiceTest {
         Long sessionId = 1L;
         Long userId = 2L;
 
-        when(sessionRepository.findById(sessionId)).thenReturn(Optional.empty());
+        when(participationRepository.findState(sessionId, userId)).thenReturn(new ParticipationState(false, true, false));
 
         assertThrows(NotFoundException.class, () -> sessionService.participate(sessionId, userId));
     }
@@ -79,12 +88,7 @@ class SessionServiceTest {
         Long sessionId = 1L;
         Long userId = 2L;
 
-        Session session = new Session();
-        session.setId(sessionId);
-        session.setUsers(new ArrayList<>());
-
-        when(sessionRepository.findById(sessionId)).thenReturn(Optional.of(session));
-        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        when(participationRepository.findState(sessionId, userId)).thenReturn(new ParticipationState(true, false, false));
 
         assertThrows(NotFoundException.class, () -> sessionService.participate(sessionId, userId));
     }
@@ -94,40 +98,35 @@ class SessionServiceTest {
         Long sessionId = 1L;
         Long userId = 2L;
 
-        User user = new User();
-        user.setId(userId);
-
-        Session session = new Session();
-        session.setId(sessionId);
-        session.setUsers(new ArrayList<>());
-        session.getUsers().add(user);
-
-        when(sessionRepository.findById(sessionId)).thenReturn(Optional.of(session));
-        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(participationRepository.findState(sessionId, userId)).thenReturn(new ParticipationState(true, true, true));
 
         assertThrows(BadRequestException.class, () -> sessionService.participate(sessionId, userId));
     }
 
     @Test
-    void noLongerParticipate_ShouldRemoveUserFromSession_WhenValidIdsAreProvided() {
+    void participate_ShouldThrowConflictException_WhenSessionIsFull() {
         Long sessionId = 1L;
         Long userId = 2L;
 
-        User user = new User();
-        user.setId(userId);
+        when(participationRepository.findState(sessionId, userId)).thenReturn(new ParticipationState(true, true, false));
 
-        Session session = new Session();
-        session.setId(sessionId);
-        session.setUsers(new ArrayList<>());
-        session.getUsers().add(user);
+        assertThrows(ConflictException.class, () -> sessionService.participate(sessionId, userId));
+        // rien n'a été écrit : la liste en cache reste valable
+        verifyNoInteractions(sessionListCache);
+    }
 
-        when(sessionRepository.findById(sessionId)).thenReturn(Optional.of(session));
-        when(sessionRepository.save(any(Session.class))).thenReturn(session);
+    @Test
+    void noLongerParticipate_ShouldReleaseSeat_WhenValidIdsAreProvided() {
+        Long sessionId = 1L;
+        Long userId = 2L;
+
+        when(seatReservationService.release(sessionId, userId)).thenReturn(true);
 
         sessionService.noLongerParticipate(sessionId, userId);
 
-        verify(sessionRepository, times(1)).save(session);
-        assertFalse(session.getUsers().contains(user));
+        // suppression réussie : aucune requête de diagnostic
+        verifyNoInteractions(participationRepository, sessionRepository);
+        verify(sessionListCache, times(1)).invalidate();
     }
 
     @Test
@@ -135,7 +134,8 @@ class SessionServiceTest {
         Long sessionId = 1L;
         Long userId = 2L;
 
-        when(sessionRepository.findById(sessionId)).thenReturn(Optional.empty());
+        when(seatReservationService.release(sessionId, userId)).thenReturn(false);
+        when(participationRepository.sessionExists(sessionId)).thenReturn(false);
 
         assertThrows(NotFoundException.class, () -> sessionService.noLongerParticipate(sessionId, userId));
     }
@@ -145,17 +145,12 @@ class SessionServiceTest {
         Long sessionId = 1L;
         Long userId = 2L;
 
-        User user = new User();
-        user.setId(userId);
-
-        Session session = new Session();
-        session.setId(sessionId);
-        session.setUsers(new ArrayList<>());
-
-        when(sessionRepository.findById(sessionId)).thenReturn(Optional.of(session));
+        when(seatReservationService.release(sessionId, userId)).thenReturn(false);
+        when(participationRepository.sessionExists(sessionId)).thenReturn(true);
 
         assertThrows(BadRequestException.class, () -> sessionService.noLongerParticipate(sessionId, userId));
     }
+
     @Test
     void create_ShouldSaveSession_WhenValidSessionProvided() {
         Session session = new Session();
@@ -181,13 +176,15 @@ class SessionServiceTest {
     void delete_ShouldDeleteSession_WhenValidIdProvided() {
         Long sessionId = 1L;
 
-        //ne fait rien (pas de suppression) ...
-        doNothing().when(sessionRepository).deleteById(sessionId);
+        Session session = new Session().setId(sessionId);
+        when(sessionRepository.findById(sessionId)).thenReturn(Optional.of(session));
 
         sessionService.delete(sessionId);
 
-        // ... sauf vérifié que cette méthode a bien été invoquée une fois
-        verify(sessionRepository, times(1)).deleteById(sessionId);
+        // suppression de la session lue, après avoir vidé la file d'attente
+        verify(waitlistService, times(1)).clear(sessionId);
+        verify(sessionRepository, times(1)).delete(session);
+        verify(sessionListCache, times(1)).invalidate();
     }
 
     @Test
@@ -195,63 +192,86 @@ class SessionServiceTest {
         //id censé ne pas exister
         Long sessionId = 1L;
 
-        // configure le mock sessionRepository pour lancer NotFoundException lorsqu'on appelle
-        // sa méthode deleteById avec l'ID spécifié
-        doThrow(new NotFoundException()).when(sessionRepository).deleteById(sessionId);
+        when(sessionRepository.findById(sessionId)).thenReturn(Optional.empty());
 
         // teste que l'appel à sessionService.delete(..) est bien capable de lancer une exception de type
-        // NotFoundException
+        // NotFoundException, sans rien supprimer
         assertThrows(NotFoundException.class, () -> sessionService.delete(sessionId));
+        verify(sessionRepository, never()).delete(any(Session.class));
+        verifyNoInteractions(waitlistService);
     }
 
     @Test
-    void findAll_ShouldReturnAllSessions_WhenRepositoryContainsSessions() {
-        List<Session> sessions = List.of(new Session().setId(1L).setName("Session 1"),
-                new Session().setId(2L).setName("Session 2"));
-
-        when(sessionRepository.findAll()).thenReturn(sessions);
-
-        List<Session> result = sessionService.findAll();
+    void findAllSummaries_ShouldQueryWithoutLimitNorFilters() {
+        List<SessionSummaryDto> summaries = List.of(new SessionSummaryDto());
+        when(sessionSummaryRepository.findPage(null, null, null, null, null, true)).thenReturn(summaries);
 
-        assertEquals(2, result.size());
-        assertEquals("Session 1", result.get(0).getName());
-        assertEquals("Session 2", result.get(1).getName());
-        verify(sessionRepository, times(1)).findAll();
+        assertSame(summaries, sessionService.findAllSummaries(true));
     }
 
     @Test
-    void findAll_ShouldReturnEmptyList_WhenNoSessionsExist() {
-        when(sessionRepository.findAll()).thenReturn(List.of());
+    void findSummaryPage_ShouldAskOneExtraRowAndReportNextPage_WhenMoreRowsExist() {
+        List<SessionSummaryDto> rows = new ArrayList<>();
+        for (long i = 1; i <= SessionService.DEFAULT_PAGE_SIZE + 1; i++) {
+            SessionSummaryDto dto = new SessionSummaryDto();
+            dto.setId(i);
+            rows.add(dto);
+        }
+        when(sessionSummaryRepository.findPage(null, SessionService.DEFAULT_PAGE_SIZE + 1, null, null, null, false))
+                .thenReturn(rows);
+
+        Slice<SessionSummaryDto> result = sessionService.findSummaryPage(null, null, null, null, null, false);
+
+        assertTrue(result.hasNext());
+        assertEquals(SessionService.DEFAULT_PAGE_SIZE, result.getContent().size());
+        assertEquals(SessionService.DEFAULT_PAGE_SIZE, result.getSize());
+    }
 
-        List<Session> result = sessionService.findAll();
+    @Test
+    void findSummaryPage_ShouldPassCursorAndFiltersAndCapLimit() {
+        SessionCursor cursor = new SessionCursor(new Date(1700000000000L), 7L);
+        Date from = new Date(1690000000000L);
+        Date to = new Date(1710000000000L);
+        when(sessionSummaryRepository.findPage(any(), any(), any(), any(), any(), anyBoolean())).thenReturn(List.of());
+
+        Slice<SessionSummaryDto> result = sessionService.findSummaryPage(cursor, 5000, from, to, 3L, true);
+
+        // la taille de page est plafonnée
+        assertFalse(result.hasNext());
+        verify(sessionSummaryRepository, times(1))
+                .findPage(cursor, SessionService.MAX_PAGE_SIZE + 1, from, to, 3L, true);
+    }
 
-        assertTrue(result.isEmpty());
-        verify(sessionRepository, times(1)).findAll();
+    @Test
+    void findSummaryPage_ShouldThrowBadRequestException_WhenLimitIsNotPositive() {
+        assertThrows(BadRequestException.class, () -> sessionService.findSummaryPage(null, 0, null, null, null, false));
+        verifyNoInteractions(sessionSummaryRepository);
     }
+
     @Test
     void getById_ShouldReturnSession_WhenValidIdIsProvided() {
         Long sessionId = 1L;
         Session session = new Session().setId(sessionId).setName("Test Session");
 
-        when(sessionRepository.findById(sessionId)).thenReturn(Optional.of(session));
+        when(sessionRepository.findDetailById(sessionId)).thenReturn(Optional.of(session));
 
         Session result = sessionService.getById(sessionId);
 
         assertNotNull(result);
         assertEquals("Test Session", result.getName());
-        verify(sessionRepository, times(1)).findById(sessionId);
+        verify(sessionRepository, times(1)).findDetailById(sessionId);
     }
 
     @Test
     void getById_ShouldReturnNull_WhenSessionDoesNotExist() {
         Long sessionId = 1L;
 
-        when(sessionRepository.findById(sessionId)).thenReturn(Optional.empty());
+        when(sessionRepository.findDetailById(sessionId)).thenReturn(Optional.empty());
 
         Session result = sessionService.getById(sessionId);
 
         assertNull(result);
-        verify(sessionRepository, times(1)).findById(sessionId);
+        verify(sessionRepository, times(1)).findDetailById(sessionId);
     }
     @Test
     void update_ShouldUpdateAndReturnSession_WhenValidIdAndSessionAreProvided() {
@@ -270,6 +290,7 @@ class SessionServiceTest {
 
         Session result = sessionService.update(sessionId, session);
 
+        verify(sessionRepository, times(1)).findForUpdateById(sessionId);
         verify(sessionRepository, times(1)).save(session);
         assertNotNull(result);
         assertEquals("Session mise à jour", result.getName());
@@ -10,6 +10,7 @@ import java.util.List;
 
 import static java.util.Optional.*;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 class TeacherServiceTest {
@@ -95,4 +96,57 @@ class TeacherServiceTest {
 
         assertEquals("Repository exception", exception.getMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    void findAllAndFindByIdAreServedFromSnapshot() {
+        Teacher teacher1 = new Teacher().setId(1L).setFirstName("Prenom1").setLastName("Nom1");
+        Teacher teacher2 = new Teacher().setId(2L).setFirstName("Prenom2").setLastName("Nom2");
+        when(teacherRepository.findAll()).thenReturn(List.of(teacher2, teacher1));
+
+        assertEquals(List.of(teacher1, teacher2), teacherService.findAll());
+        assertEquals(List.of(teacher1, teacher2), teacherService.findAll());
+        assertSame(teacher2, teacherService.findById(2L));
+
+        verify(teacherRepository, times(1)).findAll();
+        verify(teacherRepository, never()).findById(any());
+    }
+
+    @Test
+    void findByIdRefreshesSnapshot_WhenTeacherWasAddedSinceLastLoad() {
+        Teacher teacher1 = new Teacher().setId(1L).setFirstName("Prenom1").setLastName("Nom1");
+        Teacher teacher2 = new Teacher().setId(2L).setFirstName("Prenom2").setLastName("Nom2");
+        when(teacherRepository.findAll()).thenReturn(List.of(teacher1), List.of(teacher1, teacher2));
+        when(teacherRepository.findById(2L)).thenReturn(of(teacher2));
+
+        String before = teacherService.version();
+        assertSame(teacher2, teacherService.findById(2L));
+
+        assertEquals(2, teacherService.findAll().size());
+        assertNotEquals(before, teacherService.version());
+        verify(teacherRepository, times(2)).findAll();
+    }
+
+    @Test
+    void versionDependsOnContentOnly() {
+        when(teacherRepository.findAll()).thenReturn(
+                List.of(new Teacher().setId(1L).setFirstName("Prenom").setLastName("Nom")),
+                List.of(new Teacher().setId(1L).setFirstName("Prenom").setLastName("Nom")),
+                List.of(new Teacher().setId(1L).setFirstName("Prenom").setLastName("Renommé")));
+
+        String first = teacherService.version();
+        teacherService.refresh();
+        assertEquals(first, teacherService.version());
+
+        teacherService.refresh();
+        assertNotEquals(first, teacherService.version());
+    }
+
+    @Test
+    void returnedListIsImmutable() {
+        when(teacherRepository.findAll()).thenReturn(List.of(new Teacher().setId(1L)));
+
+        List<Teacher> teachers = teacherService.findAll();
+
+        assertThrows(UnsupportedOperationException.class, () -> teachers.add(new Teacher()));
+    }
+}
@@ -2,6 +2,7 @@ package com.openclassrooms.starterjwt.services;
 
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.services.UserRevocationService;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -9,18 +10,25 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.util.Arrays;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
 class UserServiceTest {
     private UserRepository userRepository;
+    private UserRevocationService userRevocationService;
     private UserService userService;
 
     @BeforeEach
     void setUp() {
         userRepository = mock(UserRepository.class);
 
-        userService = new UserService(userRepository);
+        userRevocationService = mock(UserRevocationService.class);
+
+        userService = new UserService(userRepository, userRevocationService);
     }
 
     @Test
@@ -31,6 +39,7 @@ class UserServiceTest {
         userService.delete(userId);
 
         verify(userRepository, times(1)).deleteById(userId);
+        verify(userRevocationService, times(1)).revoke(userId);
     }
 
     @Test
@@ -79,4 +88,17 @@ class UserServiceTest {
 
         assertEquals("Repository exception", exception.getMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testFindAllById_UsesASingleBatchQuery() {
+        List<Long> ids = Arrays.asList(1L, 2L);
+        List<User> users = Arrays.asList(new User().setId(1L), new User().setId(2L));
+        when(userRepository.findAllById(ids)).thenReturn(users);
+
+        List<User> result = userService.findAllById(ids);
+
+        assertEquals(users, result);
+        verify(userRepository, times(1)).findAllById(ids);
+        verify(userRepository, never()).findById(anyLong());
+    }
+}
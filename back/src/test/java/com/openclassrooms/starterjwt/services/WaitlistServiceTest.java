@@ -0,0 +1,152 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.dto.WaitlistPositionDto;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.models.Waitlist;
+import com.openclassrooms.starterjwt.repository.ParticipationRepository;
+import com.openclassrooms.starterjwt.repository.ParticipationRepository.ParticipationState;
+import com.openclassrooms.starterjwt.repository.WaitlistRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WaitlistServiceTest {
+    @Mock
+    private WaitlistRepository waitlistRepository;
+
+    @Mock
+    private ParticipationRepository participationRepository;
+
+    @InjectMocks
+    private WaitlistService waitlistService;
+
+    @Test
+    void join_ShouldQueueUserAndReturnPosition_WhenSessionIsFull() {
+        when(participationRepository.findState(1L, 2L)).thenReturn(new ParticipationState(true, true, false));
+        when(waitlistRepository.findBySessionIdAndUserId(1L, 2L)).thenReturn(Optional.empty());
+        when(participationRepository.hasSeatAvailable(1L)).thenReturn(false);
+        when(waitlistRepository.saveAndFlush(any(Waitlist.class)))
+                .thenAnswer(invocation -> ((Waitlist) invocation.getArgument(0)).setId(10L));
+        when(waitlistRepository.countBySessionIdAndIdLessThanEqual(1L, 10L)).thenReturn(3L);
+
+        WaitlistPositionDto position = waitlistService.join(1L, 2L);
+
+        assertEquals(new WaitlistPositionDto(1L, 2L, 3L), position);
+    }
+
+    @Test
+    void join_ShouldThrowNotFoundException_WhenSessionOrUserDoesNotExist() {
+        when(participationRepository.findState(1L, 2L)).thenReturn(new ParticipationState(true, false, false));
+
+        assertThrows(NotFoundException.class, () -> waitlistService.join(1L, 2L));
+        verifyNoInteractions(waitlistRepository);
+    }
+
+    @Test
+    void join_ShouldThrowBadRequestException_WhenUserAlreadyParticipates() {
+        when(participationRepository.findState(1L, 2L)).thenReturn(new ParticipationState(true, true, true));
+
+        assertThrows(BadRequestException.class, () -> waitlistService.join(1L, 2L));
+        verify(waitlistRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void join_ShouldThrowBadRequestException_WhenUserIsAlreadyWaiting() {
+        when(participationRepository.findState(1L, 2L)).thenReturn(new ParticipationState(true, true, false));
+        when(waitlistRepository.findBySessionIdAndUserId(1L, 2L)).thenReturn(Optional.of(new Waitlist()));
+
+        assertThrows(BadRequestException.class, () -> waitlistService.join(1L, 2L));
+        verify(waitlistRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void join_ShouldThrowBadRequestException_WhenSeatIsStillAvailable() {
+        when(participationRepository.findState(1L, 2L)).thenReturn(new ParticipationState(true, true, false));
+        when(waitlistRepository.findBySessionIdAndUserId(1L, 2L)).thenReturn(Optional.empty());
+        when(participationRepository.hasSeatAvailable(1L)).thenReturn(true);
+
+        assertThrows(BadRequestException.class, () -> waitlistService.join(1L, 2L));
+        verify(waitlistRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void join_ShouldThrowBadRequestException_WhenConcurrentJoinHitsUniqueIndex() {
+        when(participationRepository.findState(1L, 2L)).thenReturn(new ParticipationState(true, true, false));
+        when(waitlistRepository.findBySessionIdAndUserId(1L, 2L)).thenReturn(Optional.empty());
+        when(participationRepository.hasSeatAvailable(1L)).thenReturn(false);
+        when(waitlistRepository.saveAndFlush(any(Waitlist.class))).thenThrow(new DataIntegrityViolationException("doublon"));
+
+        assertThrows(BadRequestException.class, () -> waitlistService.join(1L, 2L));
+    }
+
+    @Test
+    void leave_ShouldDeleteEntry_OrThrowNotFoundException() {
+        when(waitlistRepository.deleteBySessionIdAndUserId(1L, 2L)).thenReturn(1);
+        when(waitlistRepository.deleteBySessionIdAndUserId(1L, 3L)).thenReturn(0);
+
+        waitlistService.leave(1L, 2L);
+        assertThrows(NotFoundException.class, () -> waitlistService.leave(1L, 3L));
+    }
+
+    @Test
+    void getPosition_ShouldCountEntriesAhead_OrThrowNotFoundException() {
+        Waitlist entry = Waitlist.builder().id(7L).sessionId(1L).userId(2L).build();
+        when(waitlistRepository.findBySessionIdAndUserId(1L, 2L)).thenReturn(Optional.of(entry));
+        when(waitlistRepository.findBySessionIdAndUserId(1L, 3L)).thenReturn(Optional.empty());
+        when(waitlistRepository.countBySessionIdAndIdLessThanEqual(1L, 7L)).thenReturn(1L);
+
+        assertEquals(1L, waitlistService.getPosition(1L, 2L).getPosition());
+        assertThrows(NotFoundException.class, () -> waitlistService.getPosition(1L, 3L));
+    }
+
+    @Test
+    void promoteHead_ShouldMoveHeadToParticipants() {
+        Waitlist head = Waitlist.builder().id(7L).sessionId(1L).userId(2L).build();
+        when(waitlistRepository.findFirstBySessionIdOrderByIdAsc(1L)).thenReturn(Optional.of(head));
+        when(participationRepository.insertIfSeatAvailable(1L, 2L)).thenReturn(1);
+
+        assertEquals(Optional.of(2L), waitlistService.promoteHead(1L));
+        verify(waitlistRepository, times(1)).delete(head);
+        verify(waitlistRepository, times(1)).findFirstBySessionIdOrderByIdAsc(1L);
+    }
+
+    @Test
+    void promoteHead_ShouldSkipStaleEntries_AndReturnEmptyWhenQueueIsExhausted() {
+        Waitlist stale = Waitlist.builder().id(7L).sessionId(1L).userId(2L).build();
+        when(waitlistRepository.findFirstBySessionIdOrderByIdAsc(1L)).thenReturn(Optional.of(stale), Optional.empty());
+        when(participationRepository.insertIfSeatAvailable(1L, 2L)).thenReturn(0);
+        when(participationRepository.hasSeatAvailable(1L)).thenReturn(true);
+
+        assertEquals(Optional.empty(), waitlistService.promoteHead(1L));
+        verify(waitlistRepository, times(1)).delete(stale);
+    }
+
+    @Test
+    void promoteHead_ShouldKeepHeadInQueue_WhenSessionIsStillFull() {
+        Waitlist head = Waitlist.builder().id(7L).sessionId(1L).userId(2L).build();
+        when(waitlistRepository.findFirstBySessionIdOrderByIdAsc(1L)).thenReturn(Optional.of(head));
+        when(participationRepository.insertIfSeatAvailable(1L, 2L)).thenReturn(0);
+        when(participationRepository.hasSeatAvailable(1L)).thenReturn(false);
+
+        assertEquals(Optional.empty(), waitlistService.promoteHead(1L));
+        verify(waitlistRepository, never()).delete(any(Waitlist.class));
+    }
+
+    @Test
+    void clear_ShouldDeleteAllEntriesOfSession() {
+        waitlistService.clear(1L);
+
+        verify(waitlistRepository, times(1)).deleteBySessionId(1L);
+    }
+}
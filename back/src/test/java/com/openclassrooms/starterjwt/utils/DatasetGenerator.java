@@ -0,0 +1,497 @@
+package com.openclassrooms.starterjwt.utils;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Générateur de jeu de données synthétique pour les tests de charge et les bancs d'essai, sur H2 ou MySQL.
+ * <p>
+ * Les volumes sont configurables. La popularité des sessions et l'activité des utilisateurs suivent une loi de Zipf :
+ * quelques cours très demandés, quelques utilisateurs très assidus. Les lignes sont insérées par lots JDBC, réparties
+ * en tranches entre plusieurs écrivains parallèles. Chaque tranche tire ses valeurs d'un générateur aléatoire qui lui
+ * est propre, dérivé de la graine : le contenu ne dépend que de la configuration, pas du nombre de threads.
+ * <p>
+ * Les identifiants sont attribués explicitement, à la suite des lignes déjà présentes (données de base de la
+ * migration V2 conservées).
+ * Tous les utilisateurs générés ont le mot de passe {@link #PASSWORD} et l'adresse {@link #emailOf(long)}.
+ * Sur MySQL, ajouter rewriteBatchedStatements=true à l'URL pour que les lots deviennent des insertions multi-lignes.
+ * <p>
+ * En ligne de commande (propriétés dataset.*, voir {@link Config#fromSystemProperties()}) :
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.openclassrooms.starterjwt.utils.DatasetGenerator -Ddataset.users=1000000
+ * </pre>
+ */
+@Slf4j
+public class DatasetGenerator {
+    public static final String PASSWORD = "test!1234";
+
+    // BCrypt de PASSWORD (celui de l'administrateur de la migration V2) : hacher un million de mots de passe
+    // prendrait des heures
+    static final String PASSWORD_HASH = "$2a$10$.Hsa/ZjUVaHqi0tp9xieMeewrnZxrZ5pQRzddUXE/WjDu2ZThe6Iq";
+
+    private static final String[] FIRST_NAMES = {"Margot", "Hélène", "Camille", "Louis", "Chloé", "Hugo", "Léa",
+            "Lucas", "Manon", "Jules", "Inès", "Nathan", "Sarah", "Arthur", "Emma", "Paul", "Zoé", "Adam"};
+
+    private static final String[] LAST_NAMES = {"DELAHAYE", "THIERCELIN", "MARTIN", "BERNARD", "DUBOIS", "THOMAS",
+            "ROBERT", "RICHARD", "PETIT", "DURAND", "LEROY", "MOREAU", "SIMON", "LAURENT", "LEFEBVRE", "MICHEL"};
+
+    private static final String[] STYLES = {"Hatha", "Vinyasa", "Yin", "Ashtanga", "Kundalini", "Iyengar",
+            "Nidra", "Prénatal", "Restauratif", "Power"};
+
+    // flux aléatoires indépendants, un par table
+    private static final long TEACHER_STREAM = 1;
+    private static final long USER_STREAM = 2;
+    private static final long SESSION_STREAM = 3;
+    private static final long PARTICIPATION_STREAM = 4;
+
+    private final DataSource dataSource;
+
+    private final Config config;
+
+    public DatasetGenerator(DataSource dataSource, Config config) {
+        this.dataSource = dataSource;
+        this.config = config;
+    }
+
+    public static String emailOf(long userIndex) {
+        return "dataset" + userIndex + "@studio.test";
+    }
+
+    public static void main(String[] args) {
+        String url = System.getProperty("dataset.url", "jdbc:mysql://localhost:3306/test?allowPublicKeyRetrieval=true"
+                + "&useUnicode=true&characterEncoding=UTF-8&serverTimezone=UTC&rewriteBatchedStatements=true");
+        DataSource dataSource = new DriverManagerDataSource(url,
+                System.getProperty("dataset.username", "user"), System.getProperty("dataset.password", "123456"));
+
+        new DatasetGenerator(dataSource, Config.fromSystemProperties()).generate();
+    }
+
+    public Result generate() {
+        long begin = System.nanoTime();
+        long teacherBase = maxId("TEACHERS");
+        long userBase = maxId("USERS");
+        long sessionBase = maxId("SESSIONS");
+        LocalDateTime origin = config.getOrigin().atStartOfDay();
+
+        int[] participants = allocateParticipants();
+        Permutation users = new Permutation(config.getUsers(), config.getSeed() ^ USER_STREAM);
+        double[] userActivity = cumulativeZipf(config.getUsers(), config.getUserSkew());
+
+        ExecutorService executor = Executors.newFixedThreadPool(config.getWriters());
+        try {
+            write(executor, "TEACHERS", "INSERT INTO TEACHERS (id, last_name, first_name, created_at, updated_at)"
+                    + " VALUES (?, ?, ?, ?, ?)", config.getTeachers(), config.getChunkSize(), TEACHER_STREAM,
+                    (ps, random, index) -> {
+                Timestamp createdAt = Timestamp.valueOf(origin.minusDays(365 + random.nextInt(365)));
+                ps.setLong(1, teacherBase + 1 + index);
+                ps.setString(2, pick(LAST_NAMES, random));
+                ps.setString(3, pick(FIRST_NAMES, random));
+                ps.setTimestamp(4, createdAt);
+                ps.setTimestamp(5, createdAt);
+                ps.addBatch();
+                return 1;
+            });
+
+            write(executor, "USERS", "INSERT INTO USERS (id, last_name, first_name, admin, email, password,"
+                    + " created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", config.getUsers(),
+                    config.getChunkSize(), USER_STREAM, (ps, random, index) -> {
+                Timestamp createdAt = Timestamp.valueOf(origin.minusMinutes(random.nextInt(2 * 365 * 24 * 60)));
+                ps.setLong(1, userBase + 1 + index);
+                ps.setString(2, pick(LAST_NAMES, random));
+                ps.setString(3, pick(FIRST_NAMES, random));
+                ps.setBoolean(4, random.nextInt(1000) == 0);
+                ps.setString(5, emailOf(index));
+                ps.setString(6, PASSWORD_HASH);
+                ps.setTimestamp(7, createdAt);
+                ps.setTimestamp(8, createdAt);
+                ps.addBatch();
+                return 1;
+            });
+
+            int halfSpan = config.getSpanDays() / 2;
+            write(executor, "SESSIONS", "INSERT INTO SESSIONS (id, name, description, date, teacher_id, capacity,"
+                    + " created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", config.getSessions(),
+                    config.getChunkSize(), SESSION_STREAM, (ps, random, index) -> {
+                String style = pick(STYLES, random);
+                LocalDateTime date = origin.plusDays(random.nextInt(2 * halfSpan + 1) - halfSpan)
+                        .plusHours(7 + random.nextInt(15))
+                        .plusMinutes(15L * random.nextInt(4));
+                Timestamp createdAt = Timestamp.valueOf(date.minusDays(1 + random.nextInt(60)));
+                ps.setLong(1, sessionBase + 1 + index);
+                ps.setString(2, "Yoga " + style + " n°" + (index + 1));
+                ps.setString(3, "Séance de yoga " + style.toLowerCase() + " de " + (45 + 15 * random.nextInt(4))
+                        + " minutes, tous niveaux.");
+                ps.setTimestamp(4, Timestamp.valueOf(date));
+                ps.setLong(5, teacherBase + 1 + random.nextInt(config.getTeachers()));
+                // une partie des sessions est complète, aucune ne dépasse la capacité maximale
+                ps.setInt(6, Math.min(config.getCapacity(),
+                        participants[(int) index] + random.nextInt(config.getSpareSeats() + 1)));
+                ps.setTimestamp(7, createdAt);
+                ps.setTimestamp(8, createdAt);
+                ps.addBatch();
+                return 1;
+            });
+
+            // tranches d'environ chunkSize inscriptions
+            long sessionsPerChunk = Math.max(1, (long) config.getChunkSize() * config.getSessions()
+                    / Math.max(1, config.getParticipations()));
+            long participations = write(executor, "PARTICIPATE", "INSERT INTO PARTICIPATE (user_id, session_id)"
+                    + " VALUES (?, ?)", config.getSessions(), sessionsPerChunk, PARTICIPATION_STREAM,
+                    (ps, random, index) -> {
+                int count = participants[(int) index];
+                for (int userIndex : sampleUsers(count, users, userActivity, random)) {
+                    ps.setLong(1, userBase + 1 + userIndex);
+                    ps.setLong(2, sessionBase + 1 + index);
+                    ps.addBatch();
+                }
+                return count;
+            });
+
+            Result result = new Result(config.getTeachers(), config.getUsers(), config.getSessions(), participations,
+                    userBase + 1, (System.nanoTime() - begin) / 1_000_000);
+            log.info("Jeu de données généré en {} ms : {} professeurs, {} utilisateurs, {} sessions, {} inscriptions",
+                    result.getElapsedMs(), result.getTeachers(), result.getUsers(), result.getSessions(),
+                    result.getParticipations());
+            return result;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Nombre d'inscriptions de chaque session : le total demandé est réparti selon le rang de popularité
+     * (loi de Zipf), dans la limite de la capacité et du nombre d'utilisateurs. Ce qu'une session pleine ne peut
+     * recevoir est redistribué aux autres, toujours selon leur popularité. Les rangs sont dispersés parmi les sessions.
+     */
+    int[] allocateParticipants() {
+        int sessions = config.getSessions();
+        int[] participants = new int[sessions];
+        int seats = Math.min(config.getUsers(), config.getCapacity());
+        if (sessions == 0 || seats <= 0) {
+            return participants;
+        }
+
+        Permutation ranks = new Permutation(sessions, config.getSeed() ^ SESSION_STREAM);
+        double[] cumulative = cumulativeZipf(sessions, config.getSessionSkew());
+        double[] weights = new double[sessions];
+        double previous = 0;
+        for (int rank = 0; rank < sessions; rank++) {
+            weights[rank] = cumulative[rank] - previous;
+            previous = cumulative[rank];
+        }
+
+        long remaining = Math.min(config.getParticipations(), (long) sessions * seats);
+        boolean[] full = new boolean[sessions];
+        // avec un exposant de 1, les premiers rangs dépassent de loin la capacité : leur surplus est réparti à nouveau
+        while (remaining > 0) {
+            double open = 0;
+            for (int rank = 0; rank < sessions; rank++) {
+                open += full[rank] ? 0 : weights[rank];
+            }
+            long toPlace = remaining;
+            long placed = 0;
+            for (int rank = 0; rank < sessions; rank++) {
+                if (full[rank]) {
+                    continue;
+                }
+                int index = ranks.apply(rank);
+                int added = (int) Math.min(seats - participants[index], (long) (toPlace * weights[rank] / open));
+                participants[index] += added;
+                placed += added;
+                full[rank] = participants[index] == seats;
+            }
+            remaining -= placed;
+            if (placed == 0) {
+                break;
+            }
+        }
+        // reliquat des arrondis, en commençant par les sessions les plus populaires
+        for (int rank = 0; remaining > 0; rank = (rank + 1) % sessions) {
+            int index = ranks.apply(rank);
+            if (participants[index] < seats) {
+                participants[index]++;
+                remaining--;
+            }
+        }
+        return participants;
+    }
+
+    private static int[] sampleUsers(int count, Permutation users, double[] activity, SplittableRandom random) {
+        Set<Integer> chosen = new HashSet<>(count * 2);
+        long attempts = 20L * count;
+        while (chosen.size() < count && attempts-- > 0) {
+            int rank = Arrays.binarySearch(activity, random.nextDouble());
+            chosen.add(users.apply(Math.min(rank < 0 ? -rank - 1 : rank, activity.length - 1)));
+        }
+        // session presque pleine d'après la loi de Zipf : on complète par un balayage
+        for (int index = random.nextInt(activity.length); chosen.size() < count; index = (index + 1) % activity.length) {
+            chosen.add(index);
+        }
+
+        int[] sorted = chosen.stream().mapToInt(Integer::intValue).toArray();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * Fonction de répartition de la loi de Zipf sur n rangs (poids 1 / (rang + 1)^exposant), normalisée à 1.
+     */
+    static double[] cumulativeZipf(int n, double exponent) {
+        double[] cumulative = new double[n];
+        double total = 0;
+        for (int rank = 0; rank < n; rank++) {
+            total += 1 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = total;
+        }
+        for (int rank = 0; rank < n; rank++) {
+            cumulative[rank] /= total;
+        }
+        return cumulative;
+    }
+
+    private long write(ExecutorService executor, String table, String sql, long rows, long chunkSize, long stream,
+                       RowWriter writer) {
+        long begin = System.nanoTime();
+        List<Future<Long>> chunks = new ArrayList<>();
+        for (long from = 0; from < rows; from += chunkSize) {
+            long chunkFrom = from;
+            long chunkTo = Math.min(rows, from + chunkSize);
+            SplittableRandom random = new SplittableRandom(mix(config.getSeed(), stream, chunkFrom));
+            chunks.add(executor.submit(() -> writeChunk(sql, chunkFrom, chunkTo, random, writer)));
+        }
+
+        long written = 0;
+        try {
+            for (Future<Long> chunk : chunks) {
+                written += chunk.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Génération interrompue (" + table + ")", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Échec de l'écriture de " + table, e.getCause());
+        }
+
+        long elapsedMs = Math.max(1, (System.nanoTime() - begin) / 1_000_000);
+        log.info("{} : {} lignes en {} ms ({} lignes/s)", table, written, elapsedMs, written * 1000 / elapsedMs);
+        return written;
+    }
+
+    private long writeChunk(String sql, long from, long to, SplittableRandom random, RowWriter writer)
+            throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            long written = 0;
+            int pending = 0;
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                for (long index = from; index < to; index++) {
+                    int added = writer.write(ps, random, index);
+                    written += added;
+                    pending += added;
+                    if (pending >= config.getBatchSize()) {
+                        ps.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    ps.executeBatch();
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+            return written;
+        }
+    }
+
+    private long maxId(String table) {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+            rs.next();
+            return rs.getLong(1);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Lecture du dernier identifiant de " + table + " impossible", e);
+        }
+    }
+
+    private static String pick(String[] values, SplittableRandom random) {
+        return values[random.nextInt(values.length)];
+    }
+
+    // SplitMix64 : des graines voisines (tranches consécutives) donnent des suites sans corrélation
+    private static long mix(long seed, long stream, long chunk) {
+        long z = seed + stream * 0x9E3779B97F4A7C15L + chunk * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        /**
+         * Ajoute au lot la ou les lignes de l'élément index et retourne leur nombre.
+         */
+        int write(PreparedStatement ps, SplittableRandom random, long index) throws SQLException;
+    }
+
+    /**
+     * Bijection rang → index (multiplication par un pas premier avec n, puis décalage) : les éléments populaires
+     * ne sont pas les premiers identifiants, sans tableau de permutation à stocker.
+     */
+    static class Permutation {
+        private final long n;
+
+        private final long stride;
+
+        private final long offset;
+
+        Permutation(int n, long seed) {
+            this.n = Math.max(1, n);
+            SplittableRandom random = new SplittableRandom(seed);
+            long candidate = this.n > 2 ? 1 + random.nextLong(this.n - 1) : 1;
+            while (gcd(candidate, this.n) != 1) {
+                candidate++;
+            }
+            this.stride = candidate;
+            this.offset = random.nextLong(this.n);
+        }
+
+        int apply(int rank) {
+            return (int) ((rank * stride + offset) % n);
+        }
+
+        private static long gcd(long a, long b) {
+            return b == 0 ? a : gcd(b, a % b);
+        }
+    }
+
+    @Getter
+    @Builder(toBuilder = true)
+    public static class Config {
+        @Builder.Default
+        private final int teachers = 20;
+
+        @Builder.Default
+        private final int users = 10_000;
+
+        @Builder.Default
+        private final int sessions = 2_000;
+
+        @Builder.Default
+        private final long participations = 200_000;
+
+        // exposants de Zipf : 0 = uniforme, plus grand = plus concentré
+        @Builder.Default
+        private final double sessionSkew = 1.0;
+
+        @Builder.Default
+        private final double userSkew = 0.8;
+
+        // places par session au plus : les inscriptions d'une session populaire s'arrêtent là
+        @Builder.Default
+        private final int capacity = 150;
+
+        // places libres ajoutées au-dessus du nombre d'inscrits (tirées entre 0 et spareSeats), dans la limite de capacity
+        @Builder.Default
+        private final int spareSeats = 5;
+
+        @Builder.Default
+        private final long seed = 42;
+
+        @Builder.Default
+        private final int batchSize = 1_000;
+
+        @Builder.Default
+        private final int chunkSize = 10_000;
+
+        @Builder.Default
+        private final int writers = Runtime.getRuntime().availableProcessors();
+
+        // dates des sessions réparties sur spanDays jours autour de origin ; date fixe, pour que deux générations avec
+        // la même graine donnent les mêmes lignes quel que soit le jour
+        @Builder.Default
+        private final LocalDate origin = LocalDate.of(2026, 1, 1);
+
+        @Builder.Default
+        private final int spanDays = 365;
+
+        /**
+         * Volumes proportionnels au nombre d'utilisateurs : 1 000 000 d'utilisateurs donnent 200 000 sessions,
+         * 20 000 000 d'inscriptions et 50 professeurs.
+         */
+        public static ConfigBuilder scaledTo(int users) {
+            return Config.builder()
+                    .users(users)
+                    .teachers(Math.max(2, users / 20_000))
+                    .sessions(Math.max(1, users / 5))
+                    .participations(users * 20L);
+        }
+
+        /**
+         * Configuration lue dans les propriétés système dataset.* (users, teachers, sessions, participations,
+         * capacity, sessionSkew, userSkew, seed, batchSize, chunkSize, writers, origin) ; les volumes non précisés suivent
+         * {@link #scaledTo(int)}.
+         */
+        public static Config fromSystemProperties() {
+            Config defaults = scaledTo(Integer.getInteger("dataset.users", 10_000)).build();
+            return defaults.toBuilder()
+                    .teachers(Integer.getInteger("dataset.teachers", defaults.getTeachers()))
+                    .sessions(Integer.getInteger("dataset.sessions", defaults.getSessions()))
+                    .participations(Long.getLong("dataset.participations", defaults.getParticipations()))
+                    .capacity(Integer.getInteger("dataset.capacity", defaults.getCapacity()))
+                    .sessionSkew(Double.parseDouble(System.getProperty("dataset.sessionSkew",
+                            String.valueOf(defaults.getSessionSkew()))))
+                    .userSkew(Double.parseDouble(System.getProperty("dataset.userSkew",
+                            String.valueOf(defaults.getUserSkew()))))
+                    .seed(Long.getLong("dataset.seed", defaults.getSeed()))
+                    .batchSize(Integer.getInteger("dataset.batchSize", defaults.getBatchSize()))
+                    .chunkSize(Integer.getInteger("dataset.chunkSize", defaults.getChunkSize()))
+                    .writers(Integer.getInteger("dataset.writers", defaults.getWriters()))
+                    .origin(LocalDate.parse(System.getProperty("dataset.origin", defaults.getOrigin().toString())))
+                    .build();
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Result {
+        private final int teachers;
+
+        private final int users;
+
+        private final int sessions;
+
+        private final long participations;
+
+        // identifiant de l'utilisateur d'index 0 (voir emailOf)
+        private final long firstUserId;
+
+        private final long elapsedMs;
+    }
+}
@@ -0,0 +1,146 @@
+package com.openclassrooms.starterjwt.utils;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DatasetGeneratorTest {
+    private final List<JdbcTemplate> databases = new ArrayList<>();
+
+    private static DatasetGenerator.Config.ConfigBuilder smallConfig() {
+        return DatasetGenerator.Config.builder()
+                .teachers(5)
+                .users(2_000)
+                .sessions(400)
+                .participations(10_000)
+                .chunkSize(300)
+                .batchSize(200)
+                .writers(4)
+                .origin(LocalDate.of(2025, 1, 1));
+    }
+
+    //base H2 privée à chaque appel : la base partagée des tests d'intégration n'est pas touchée
+    private DataSource newDatabase() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:dataset-" + UUID.randomUUID() + ";MODE=MYSQL;DB_CLOSE_DELAY=-1;DATABASE_TO_UPPER=false",
+                "sa", "password");
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        databases.add(new JdbcTemplate(dataSource));
+        return dataSource;
+    }
+
+    @AfterEach
+    void dropDatabases() {
+        databases.forEach(jdbcTemplate -> jdbcTemplate.execute("DROP ALL OBJECTS"));
+    }
+
+    @Test
+    void generate_ShouldWriteRequestedVolumes_AfterExistingRows() {
+        DataSource dataSource = newDatabase();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        DatasetGenerator.Result result = new DatasetGenerator(dataSource, smallConfig().build()).generate();
+
+        assertEquals(10_000, result.getParticipations());
+        assertEquals(2, result.getFirstUserId());
+        assertEquals(5 + 2, count(jdbcTemplate, "SELECT COUNT(*) FROM TEACHERS"));
+        assertEquals(2_000 + 1, count(jdbcTemplate, "SELECT COUNT(*) FROM USERS"));
+        assertEquals(400, count(jdbcTemplate, "SELECT COUNT(*) FROM SESSIONS"));
+        assertEquals(10_000, count(jdbcTemplate, "SELECT COUNT(*) FROM PARTICIPATE"));
+        assertEquals(10_000, count(jdbcTemplate, "SELECT COUNT(*) FROM (SELECT DISTINCT user_id, session_id FROM PARTICIPATE) p"));
+        //aucune session n'a plus d'inscrits que de places
+        assertEquals(0, count(jdbcTemplate, "SELECT COUNT(*) FROM SESSIONS s WHERE s.capacity <"
+                + " (SELECT COUNT(*) FROM PARTICIPATE p WHERE p.session_id = s.id)"));
+        assertEquals(150, count(jdbcTemplate, "SELECT MAX(capacity) FROM SESSIONS"));
+        assertEquals(result.getFirstUserId(), count(jdbcTemplate, "SELECT id FROM USERS WHERE email = ?",
+                DatasetGenerator.emailOf(0)));
+        assertEquals(DatasetGenerator.PASSWORD_HASH, jdbcTemplate.queryForObject(
+                "SELECT password FROM USERS WHERE email = 'yoga@studio.com'", String.class));
+
+        //les insertions suivantes reprennent après les identifiants générés
+        jdbcTemplate.update("INSERT INTO USERS (first_name, last_name, admin, email, password)"
+                + " VALUES ('Après', 'Génération', false, 'apres@test.com', 'x')");
+        assertTrue(count(jdbcTemplate, "SELECT id FROM USERS WHERE email = 'apres@test.com'") > 2_001);
+    }
+
+    @Test
+    void generate_ShouldProduceSameData_ForSameSeed_WhateverTheWriters() {
+        JdbcTemplate single = new JdbcTemplate(newDatabase());
+        JdbcTemplate parallel = new JdbcTemplate(newDatabase());
+        JdbcTemplate otherSeed = new JdbcTemplate(newDatabase());
+
+        new DatasetGenerator(single.getDataSource(), smallConfig().writers(1).batchSize(1_000).build()).generate();
+        new DatasetGenerator(parallel.getDataSource(), smallConfig().writers(8).batchSize(50).build()).generate();
+        new DatasetGenerator(otherSeed.getDataSource(), smallConfig().seed(7).build()).generate();
+
+        assertEquals(dump(single), dump(parallel));
+        assertNotEquals(dump(single), dump(otherSeed));
+    }
+
+    @Test
+    void generate_ShouldConcentrateParticipations_OnPopularSessionsAndHeavyUsers() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(newDatabase());
+
+        new DatasetGenerator(jdbcTemplate.getDataSource(), smallConfig().build()).generate();
+
+        //1 % des sessions (4) et 1 % des utilisateurs (20) : 1 % des inscriptions si la répartition était uniforme
+        long topSessions = count(jdbcTemplate, "SELECT COALESCE(SUM(c), 0) FROM (SELECT COUNT(*) AS c FROM PARTICIPATE"
+                + " GROUP BY session_id ORDER BY c DESC LIMIT 4) t");
+        long topUsers = count(jdbcTemplate, "SELECT COALESCE(SUM(c), 0) FROM (SELECT COUNT(*) AS c FROM PARTICIPATE"
+                + " GROUP BY user_id ORDER BY c DESC LIMIT 20) t");
+        //les plus populaires sont pleines : leur surplus (plus de 1 500 inscriptions pour la première) est redistribué
+        assertEquals(4 * 150, topSessions, "inscriptions des 4 sessions les plus populaires");
+        assertTrue(topUsers > 500, "inscriptions des 20 utilisateurs les plus actifs : " + topUsers);
+    }
+
+    @Test
+    void allocateParticipants_ShouldStayWithinCapacity_AndKeepRequestedTotal() {
+        DatasetGenerator generator = new DatasetGenerator(null, smallConfig().capacity(30).build());
+
+        int[] participants = generator.allocateParticipants();
+
+        assertEquals(10_000, Arrays.stream(participants).asLongStream().sum());
+        assertEquals(30, Arrays.stream(participants).max().orElse(0));
+    }
+
+    @Test
+    void scaledTo_ShouldKeepProductionRatios() {
+        DatasetGenerator.Config config = DatasetGenerator.Config.scaledTo(1_000_000).build();
+
+        assertEquals(1_000_000, config.getUsers());
+        assertEquals(200_000, config.getSessions());
+        assertEquals(20_000_000L, config.getParticipations());
+        assertEquals(50, config.getTeachers());
+    }
+
+    private static long count(JdbcTemplate jdbcTemplate, String sql, Object... args) {
+        Long count = jdbcTemplate.queryForObject(sql, Long.class, args);
+        return count == null ? 0 : count;
+    }
+
+    private static List<Map<String, Object>> dump(JdbcTemplate jdbcTemplate) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        rows.addAll(jdbcTemplate.queryForList("SELECT id, last_name, first_name, created_at FROM TEACHERS"
+                + " WHERE id > 2 ORDER BY id"));
+        rows.addAll(jdbcTemplate.queryForList("SELECT id, last_name, first_name, admin, email, created_at FROM USERS"
+                + " WHERE id > 1 ORDER BY id"));
+        rows.addAll(jdbcTemplate.queryForList("SELECT id, name, description, date, teacher_id, capacity FROM SESSIONS"
+                + " ORDER BY id"));
+        rows.addAll(jdbcTemplate.queryForList("SELECT session_id, user_id FROM PARTICIPATE ORDER BY session_id, user_id"));
+        return rows;
+    }
+}
@@ -0,0 +1,20 @@
+package com.openclassrooms.starterjwt.utils;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Base H2 de test partagée par tous les contextes Spring : chacun repart d'une base vide, migrée de zéro.
+ */
+@Component
+@Profile("!perf")
+public class FlywayCleanMigrate implements FlywayMigrationStrategy {
+
+    @Override
+    public void migrate(Flyway flyway) {
+        flyway.clean();
+        flyway.migrate();
+    }
+}
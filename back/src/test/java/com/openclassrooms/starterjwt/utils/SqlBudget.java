@@ -0,0 +1,22 @@
+package com.openclassrooms.starterjwt.utils;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Nombre maximal de requêtes SQL autorisé pour chaque requête HTTP (MockMvc) du test, ou de tous les tests de la classe.
+ * <p>
+ * Contrôlé après le test par {@link SqlBudgetTestExecutionListener} : un dépassement fait échouer le test en listant
+ * les requêtes SQL de la requête HTTP fautive. Dans un test @Transactional, la requête HTTP partage le contexte de
+ * persistance du test : les entités créées par le test n'y sont pas relues et les écritures ne sont exécutées qu'au
+ * rollback. Le budget ne couvre alors que les lectures restantes (et les écritures forcées par un flush).
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface SqlBudget {
+    int value();
+}
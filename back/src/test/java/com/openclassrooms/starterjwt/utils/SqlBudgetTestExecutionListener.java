@@ -0,0 +1,65 @@
+package com.openclassrooms.starterjwt.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.test.context.TestContext;
+import org.springframework.test.context.support.AbstractTestExecutionListener;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Contrôle les budgets {@link SqlBudget} ; enregistré pour tous les tests Spring par META-INF/spring.factories.
+ * Un budget plus large que le nombre observé est signalé dans le journal, pour être abaissé (cliquet).
+ */
+@Slf4j
+public class SqlBudgetTestExecutionListener extends AbstractTestExecutionListener {
+
+    @Override
+    public void beforeTestMethod(TestContext testContext) {
+        if (budgetOf(testContext) != null) {
+            counterOf(testContext).resetRequests();
+        }
+    }
+
+    @Override
+    public void afterTestMethod(TestContext testContext) {
+        SqlBudget budget = budgetOf(testContext);
+        //un test déjà en échec garde sa propre erreur
+        if (budget == null || testContext.getTestException() != null) {
+            return;
+        }
+
+        String test = testContext.getTestClass().getSimpleName() + "." + testContext.getTestMethod().getName();
+        List<SqlStatementCounter.HttpRequestStatements> requests = counterOf(testContext).requests();
+        if (requests.isEmpty()) {
+            throw new AssertionError(test + " : @SqlBudget sans requête HTTP");
+        }
+
+        List<String> exceeded = requests.stream()
+                .filter(request -> request.statements.size() > budget.value())
+                .map(request -> request.request + " : " + request.statements.size() + " requêtes SQL\n  "
+                        + String.join("\n  ", request.statements))
+                .collect(Collectors.toList());
+        if (!exceeded.isEmpty()) {
+            throw new AssertionError(test + " : budget de " + budget.value() + " requête(s) SQL par requête HTTP dépassé\n"
+                    + String.join("\n", exceeded));
+        }
+
+        int max = requests.stream().mapToInt(request -> request.statements.size()).max().orElse(0);
+        if (max < budget.value()) {
+            log.warn("{} : budget de {} requête(s) SQL, {} au plus observée(s) : le budget peut être abaissé",
+                    test, budget.value(), max);
+        }
+    }
+
+    private static SqlBudget budgetOf(TestContext testContext) {
+        SqlBudget budget = AnnotatedElementUtils.findMergedAnnotation(testContext.getTestMethod(), SqlBudget.class);
+        return budget != null ? budget
+                : AnnotatedElementUtils.findMergedAnnotation(testContext.getTestClass(), SqlBudget.class);
+    }
+
+    private static SqlStatementCounter counterOf(TestContext testContext) {
+        return testContext.getApplicationContext().getBean(SqlStatementCounter.class);
+    }
+}
@@ -0,0 +1,114 @@
+package com.openclassrooms.starterjwt.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.TestContext;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SqlBudgetTestExecutionListenerTest {
+    private final SqlBudgetTestExecutionListener listener = new SqlBudgetTestExecutionListener();
+
+    private final SqlStatementCounter counter = new SqlStatementCounter();
+
+    private final TestContext testContext = mock(TestContext.class);
+
+    @BeforeEach
+    void setUp() throws NoSuchMethodException {
+        ApplicationContext applicationContext = mock(ApplicationContext.class);
+        when(applicationContext.getBean(SqlStatementCounter.class)).thenReturn(counter);
+        when(testContext.getApplicationContext()).thenReturn(applicationContext);
+        when(testContext.getTestClass()).thenAnswer(invocation -> Budgeted.class);
+        when(testContext.getTestMethod()).thenReturn(Budgeted.class.getDeclaredMethod("findAll"));
+    }
+
+    @Test
+    void afterTestMethod_ShouldListStatementsOfOffendingRequest_WhenBudgetIsExceeded() {
+        listener.beforeTestMethod(testContext);
+        request("GET /api/session", 1);
+        request("GET /api/session/1", 3);
+
+        AssertionError error = assertThrows(AssertionError.class, () -> listener.afterTestMethod(testContext));
+
+        assertThat(error.getMessage(), containsString("Budgeted.findAll : budget de 2 requête(s) SQL"));
+        assertThat(error.getMessage(), containsString("GET /api/session/1 : 3 requêtes SQL\n  select 0\n  select 1\n"));
+    }
+
+    @Test
+    void afterTestMethod_ShouldPass_WhenEveryRequestIsWithinBudget() {
+        listener.beforeTestMethod(testContext);
+        request("GET /api/session", 2);
+
+        assertDoesNotThrow(() -> listener.afterTestMethod(testContext));
+    }
+
+    @Test
+    void afterTestMethod_ShouldFail_WhenNoRequestWasMade() throws NoSuchMethodException {
+        when(testContext.getTestMethod()).thenReturn(Budgeted.class.getDeclaredMethod("classBudget"));
+        listener.beforeTestMethod(testContext);
+
+        AssertionError error = assertThrows(AssertionError.class, () -> listener.afterTestMethod(testContext));
+
+        assertThat(error.getMessage(), containsString("@SqlBudget sans requête HTTP"));
+    }
+
+    @Test
+    void afterTestMethod_ShouldNotChargeStatementsOfOtherThreads() throws Exception {
+        Connection connection = mock(Connection.class);
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation -> mock(PreparedStatement.class));
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        DataSource counted = (DataSource) counter.postProcessAfterInitialization(dataSource, "dataSource");
+
+        listener.beforeTestMethod(testContext);
+        counter.beginRequest("GET /api/session");
+        counted.getConnection().prepareStatement("select 1").execute();
+        //tâche planifiée ou pool de hachage, pendant la requête
+        Thread other = new Thread(() -> {
+            try {
+                for (int i = 0; i < 3; i++) {
+                    counted.getConnection().prepareStatement("select 2").execute();
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        other.start();
+        other.join();
+        counter.endRequest();
+
+        assertEquals(4, counter.count());
+        assertDoesNotThrow(() -> listener.afterTestMethod(testContext));
+    }
+
+    private void request(String request, int statements) {
+        counter.beginRequest(request);
+        for (int i = 0; i < statements; i++) {
+            counter.requests().get(counter.requests().size() - 1).statements.add("select " + i);
+        }
+        counter.endRequest();
+    }
+
+    @SqlBudget(5)
+    static class Budgeted {
+        @SqlBudget(2)
+        void findAll() {
+        }
+
+        void classBudget() {
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.openclassrooms.starterjwt.utils;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcBuilderCustomizer;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.test.web.servlet.setup.ConfigurableMockMvcBuilder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Délimite chaque requête MockMvc pour {@link SqlStatementCounter}. Appliqué avant la personnalisation de Spring Boot,
+ * le filtre précède ceux de l'application : l'authentification est comptée dans la requête HTTP.
+ */
+@Component
+@Profile("!perf")
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SqlRequestBoundaries implements MockMvcBuilderCustomizer {
+
+    @Autowired
+    private SqlStatementCounter sqlStatementCounter;
+
+    @Override
+    public void customize(ConfigurableMockMvcBuilder<?> builder) {
+        builder.addFilters(new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                            FilterChain filterChain) throws ServletException, IOException {
+                sqlStatementCounter.beginRequest(request.getMethod() + " " + request.getRequestURI());
+                try {
+                    filterChain.doFilter(request, response);
+                } finally {
+                    sqlStatementCounter.endRequest();
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,140 @@
+package com.openclassrooms.starterjwt.utils;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Enveloppe la DataSource de test pour compter les requêtes SQL réellement exécutées
+ * (quelle que soit la couche appelante : JPA ou JDBC).
+ * <p>
+ * Les requêtes exécutées pendant une requête MockMvc (voir {@link SqlRequestBoundaries}) sont en plus regroupées par
+ * requête HTTP, pour le contrôle des budgets {@link SqlBudget}. Seules les requêtes SQL du thread qui traite la requête
+ * MockMvc lui sont imputées : celles d'autres threads (rafraîchissement planifié du catalogue des professeurs, pool de
+ * hachage des mots de passe) ne sont que dans le total.
+ * <p>
+ * Comme les autres composants de test, absent du profil perf (bancs d'essai, tirs de charge) : chaque requête y serait
+ * conservée sans limite et mesurée avec l'application.
+ */
+@Component
+@Profile("!perf")
+public class SqlStatementCounter implements BeanPostProcessor {
+
+    private final List<String> statements = new CopyOnWriteArrayList<>();
+
+    private final List<HttpRequestStatements> requests = new CopyOnWriteArrayList<>();
+
+    private final ThreadLocal<HttpRequestStatements> currentRequest = new ThreadLocal<>();
+
+    public void reset() {
+        statements.clear();
+    }
+
+    void beginRequest(String request) {
+        HttpRequestStatements statements = new HttpRequestStatements(request);
+        currentRequest.set(statements);
+        requests.add(statements);
+    }
+
+    void endRequest() {
+        currentRequest.remove();
+    }
+
+    void resetRequests() {
+        requests.clear();
+    }
+
+    List<HttpRequestStatements> requests() {
+        return new ArrayList<>(requests);
+    }
+
+    public int count() {
+        return statements.size();
+    }
+
+    public List<String> statements() {
+        return new ArrayList<>(statements);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource) {
+            return proxy(DataSource.class, bean, (target, method, args) -> {
+                Object result = invoke(target, method, args);
+                return result instanceof Connection ? connection((Connection) result) : result;
+            });
+        }
+        return bean;
+    }
+
+    private Connection connection(Connection connection) {
+        return proxy(Connection.class, connection, (target, method, args) -> {
+            Object result = invoke(target, method, args);
+            String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+            if (result instanceof CallableStatement) {
+                return statement(CallableStatement.class, (Statement) result, sql);
+            }
+            if (result instanceof PreparedStatement) {
+                return statement(PreparedStatement.class, (Statement) result, sql);
+            }
+            if (result instanceof Statement) {
+                return statement(Statement.class, (Statement) result, null);
+            }
+            return result;
+        });
+    }
+
+    private <T extends Statement> T statement(Class<T> type, Statement statement, String preparedSql) {
+        return proxy(type, statement, (target, method, args) -> {
+            if (method.getName().startsWith("execute")) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql;
+                statements.add(String.valueOf(sql));
+                HttpRequestStatements request = currentRequest.get();
+                if (request != null) {
+                    request.statements.add(String.valueOf(sql));
+                }
+            }
+            return invoke(target, method, args);
+        });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Object target, Handler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> handler.handle(target, method, args));
+    }
+
+    static class HttpRequestStatements {
+        final String request;
+
+        final List<String> statements = new CopyOnWriteArrayList<>();
+
+        HttpRequestStatements(String request) {
+            this.request = request;
+        }
+    }
+
+    private interface Handler {
+        Object handle(Object target, Method method, Object[] args) throws Throwable;
+    }
+}
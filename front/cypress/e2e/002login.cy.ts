@@ -15,7 +15,7 @@ describe('Login spec', () => {
       cy.intercept(
         {
           method: 'GET',
-          url: '/api/session',
+          pathname: '/api/session',
         },
         []).as('session')
     }// if (!Cypress.env('useRealBackend'))
@@ -77,7 +77,7 @@ describe('Login spec', () => {
       cy.intercept(
         {
           method: 'GET',
-          url: '/api/session',
+          pathname: '/api/session',
         },
         []).as('session')
     }// if (!Cypress.env('useRealBackend')) {
@@ -139,7 +139,7 @@ describe('Login spec', () => {
       cy.intercept(
         {
           method: 'GET',
-          url: '/api/session',
+          pathname: '/api/session',
         },
         []).as('session')
     }// if (!Cypress.env('useRealBackend')) {
@@ -47,7 +47,7 @@ describe('Gestion des sessions de yoga - E2E', () => {
           },
         }).as('adminLogin');
 
-        cy.intercept('GET', '/api/session', (req) => {
+        cy.intercept({ method: 'GET', pathname: '/api/session' }, (req) => {
           //req.headers.Authorization = 'Bearer fake-jwt-token';
           // cy.get('@sessionsJSON').then((sessions) => {
           //   updatedSessions = [...sessions];
@@ -83,7 +83,7 @@ describe('Gestion des sessions de yoga - E2E', () => {
           updatedSessions.push(newSession);
         }).as('getPostSession');
 
-        cy.intercept('GET', '/api/session', (req) => {
+        cy.intercept({ method: 'GET', pathname: '/api/session' }, (req) => {
           req.reply({
             statusCode: 200,
             headers: {
@@ -369,7 +369,7 @@ describe('Gestion des sessions de yoga - E2E', () => {
           }
         }).as('userLogin');
 
-        cy.intercept('GET', '/api/session', (req) => {
+        cy.intercept({ method: 'GET', pathname: '/api/session' }, (req) => {
           //req.headers.Authorization = 'Bearer fake-jwt-token';
           req.reply({statusCode: 200, body: updatedSessions});
         }).as('getSessionsUpdated');
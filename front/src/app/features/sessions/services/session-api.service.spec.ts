@@ -36,7 +36,7 @@ describe('SessionApiService', () => {
       expect(sessions).toEqual(mockSessions);
     });
 
-    const req = httpMock.expectOne('api/session');
+    const req = httpMock.expectOne('api/session?unpaged=true');
     expect(req.request.method).toBe('GET');
     req.flush(mockSessions);
   });
@@ -14,7 +14,8 @@ export class SessionApiService {
   }
 
   public all(): Observable<Session[]> {
-    return this.httpClient.get<Session[]>(this.pathService);
+    // le listing complet (non paginé) doit être demandé explicitement à l'API
+    return this.httpClient.get<Session[]>(this.pathService, { params: { unpaged: true } });
   }
 
   public detail(id: string): Observable<Session> {